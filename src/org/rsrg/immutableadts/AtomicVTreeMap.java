@@ -0,0 +1,184 @@
+package org.rsrg.immutableadts;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * A mutable, thread safe reference to an (immutable) {@link VTreeMap}.
+ * <p>
+ * Readers simply take a {@link #snapshot()}, which never blocks and is never
+ * affected by later writes. Writers compute the next version of the map from
+ * the current one and publish it with a compare-and-set, retrying if some
+ * other writer got there first (so the functions passed to the update
+ * methods may be called more than once and should be free of side effects).
+ * <p>
+ * Under heavy write contention each retry redoes an O(log n) path copy. For
+ * plain insertions, {@link #insertBatched} avoids most of that wasted work
+ * by combining concurrent insertions into a single
+ * {@link VTreeMap#insertAll bulk insert}.
+ *
+ * @param <K> the type of keys.
+ * @param <V> the type of values.
+ */
+public final class AtomicVTreeMap<K, V> {
+
+    private final AtomicReference<VTreeMap<K, V>> ref;
+
+    // state for insertBatched (flat combining): pending insertions and
+    // whether some thread is currently applying them
+    private final ConcurrentLinkedQueue<PendingInsert<K, V>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean combining = new AtomicBoolean(false);
+
+    public AtomicVTreeMap(VTreeMap<K, V> initial) {
+        this.ref = new AtomicReference<>(initial);
+    }
+
+    public static <A, B> AtomicVTreeMap<A, B> empty(Comparator<A> o) {
+        return new AtomicVTreeMap<>(VTreeMap.empty(o));
+    }
+
+    public static <A extends Comparable<A>, B> AtomicVTreeMap<A, B> empty() {
+        return new AtomicVTreeMap<>(VTreeMap.<A, B>empty());
+    }
+
+    /** O(1) - returns the current version of the map. */
+    public VTreeMap<K, V> snapshot() {
+        return ref.get();
+    }
+
+    /** O(log n) - looks {@code key} up in the current version of the map. */
+    public Maybe<V> lookup(K key) {
+        return ref.get().lookup(key);
+    }
+
+    /**
+     * Atomically replaces the current map {@code m} with {@code f(m)};
+     * returns the new map.
+     */
+    public VTreeMap<K, V> update(UnaryOperator<VTreeMap<K, V>> f) {
+        while (true) {
+            var current = ref.get();
+            var next = f.apply(current);
+            if (current == next || ref.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Atomically recomputes the binding for {@code key}: {@code f} receives
+     * the key and its current value (if any) and returns the new value, or
+     * {@link Maybe#none()} to remove the binding. Returns the new value.
+     */
+    public Maybe<V> compute(K key, BiFunction<K, Maybe<V>, Maybe<V>> f) {
+        while (true) {
+            var current = ref.get();
+            var old = current.lookup(key);
+            var updated = f.apply(key, old);
+            var next = switch (updated) {
+                case Maybe.Some(var v) -> current.insert(key, v);
+                default -> old.isEmpty() ? current : current.remove(key);
+            };
+            if (current == next || ref.compareAndSet(current, next)) {
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * Atomically binds {@code key} to {@code value} if it is unbound;
+     * otherwise rebinds it to {@code f(oldValue, value)}. Returns the new
+     * value.
+     *
+     * @throws NullPointerException if {@code value} or the result of
+     *                              {@code f} is null (the map is then left
+     *                              unchanged).
+     */
+    public V merge(K key, V value, BinaryOperator<V> f) {
+        Objects.requireNonNull(value, "value is null");
+        return compute(key, (_, old) -> switch (old) {
+            case Maybe.Some(var v) -> Maybe.of(Objects.requireNonNull(f.apply(v, value), "merged value is null"));
+            default -> Maybe.of(value);
+        }).get();
+    }
+
+    /**
+     * Inserts (or rebinds) {@code key}; returns once the binding is visible
+     * in {@link #snapshot()}.
+     * <p>
+     * Insertions made concurrently through this method are combined: while
+     * one caller applies every insertion queued so far as a single
+     * {@link VTreeMap#insertAll}, the others wait for their insertion to be
+     * picked up (instead of each racing to publish its own path copy).
+     * Concurrent insertions of the same key take effect in queue order.
+     */
+    public void insertBatched(K key, V value) {
+        var op = new PendingInsert<>(Pair.of(key, value));
+        pending.add(op);
+        var spins = 0;
+        while (!op.done) {
+            if (!combining.get() && combining.compareAndSet(false, true)) {
+                try {
+                    applyPending();
+                } finally {
+                    combining.set(false);
+                }
+            } else if (++spins % 64 == 0) {
+                Thread.yield();
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        if (op.failure != null) {
+            throw new IllegalStateException("batched insert failed", op.failure);
+        }
+    }
+
+    // precondition: the caller is the (only) combining thread
+    private void applyPending() {
+        var batch = new ArrayList<PendingInsert<K, V>>();
+        for (var op = pending.poll(); op != null; op = pending.poll()) {
+            batch.add(op);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        var kvs = new ArrayList<Pair<K, V>>(batch.size());
+        for (var op : batch) {
+            kvs.add(op.kv);
+        }
+        try {
+            update(m -> m.insertAll(kvs));
+        } catch (RuntimeException | Error e) {
+            // (e.g., a comparator failed) -- report it to every waiting caller
+            for (var op : batch) {
+                op.failure = e;
+            }
+        } finally {
+            for (var op : batch) {
+                op.done = true;
+            }
+        }
+    }
+
+    private static final class PendingInsert<K, V> {
+        final Pair<K, V> kv;
+        Throwable failure = null; // published by the write to done
+        volatile boolean done = false;
+
+        PendingInsert(Pair<K, V> kv) {
+            this.kv = kv;
+        }
+    }
+
+    @Override public String toString() {
+        return ref.get().toString();
+    }
+}
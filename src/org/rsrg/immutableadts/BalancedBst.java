@@ -1,7 +1,10 @@
 package org.rsrg.immutableadts;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Stack;
 import java.util.function.BiFunction;
@@ -34,7 +37,7 @@ final class BalancedBst<A> implements Iterable<A> {
     // factory methods:
 
     static <T> BalancedBst<T> empty(Comparator<T> o) {
-        return new BalancedBst<>(o, AlgebraicTr.empty());
+        return new BalancedBst<>(Metrics.counting(o), AlgebraicTr.empty());
     }
 
     static <T extends Comparable<T>> BalancedBst<T> empty() {
@@ -64,28 +67,36 @@ final class BalancedBst<A> implements Iterable<A> {
         return new BalancedBst<>(order, updatedRep);
     }
 
-    // recursive helper:
+    /**
+     * Iterative: records the search path on the way down, then rebuilds it
+     * bottom up, applying {@link #skew} and {@link #split} at each level
+     * (exactly what the recursive formulation from the paper does as its
+     * calls return).
+     */
     private AlgebraicTr<A> insert(A k, AlgebraicTr<A> t) {
-        return switch (t) {
-            case AlgebraicTr.Empty<A> _ -> AlgebraicTr.node(1, AlgebraicTr.empty(), k, AlgebraicTr.empty());
-            case AlgebraicTr.Node(var trLvl, var a, var trKey, var b) when order.compare(k, trKey) < 0 -> {
-                var rawLeft = insert(k, a);
-                var nodeToSkew = AlgebraicTr.node(trLvl, rawLeft, trKey, b);
-                var skewedLeft = skew(nodeToSkew);
-                var splitLeft = split(skewedLeft);
-                yield splitLeft;
-            }
-            case AlgebraicTr.Node(var trLvl, var a, var trKey, var b) when order.compare(k, trKey) > 0 -> {
-                var rawRight = insert(k, b);
-                var nodeToSkew = AlgebraicTr.node(trLvl, a, trKey, rawRight);
-                var skewedRight = skew(nodeToSkew);
-                var splitRight = split(skewedRight);
-                yield splitRight;
+        var path = new ArrayDeque<AlgebraicTr.Node<A>>();
+        var wentLeft = new ArrayDeque<Boolean>();
+        var cur = t;
+        while (cur instanceof AlgebraicTr.Node<A> n) {
+            int c = order.compare(k, n.key());
+            if (c == 0) {
+                // key == another already in the tree, return the
+                // tree unchanged (we don't deal with dups for now)
+                return t;
             }
-            // case 3: key == another already in the tree, return the
-            // tree unchanged (we don't deal with dups for now)
-            case AlgebraicTr<A> _ -> t;
-        };
+            path.push(n);
+            wentLeft.push(c < 0);
+            cur = c < 0 ? n.left() : n.right();
+        }
+        AlgebraicTr<A> result = AlgebraicTr.node(1, AlgebraicTr.empty(), k, AlgebraicTr.empty());
+        while (!path.isEmpty()) {
+            var n = path.pop();
+            var nodeToSkew = wentLeft.pop()
+                    ? AlgebraicTr.node(n.lvl(), result, n.key(), n.right())
+                    : AlgebraicTr.node(n.lvl(), n.left(), n.key(), result);
+            result = split(skew(nodeToSkew));
+        }
+        return result;
     }
 
     /**
@@ -105,7 +116,12 @@ final class BalancedBst<A> implements Iterable<A> {
                            var xKey,
                            var c
             //@formatter:on
-            ) when xLvl == yLvl -> AlgebraicTr.node(xLvl, a, yKey, AlgebraicTr.node(xLvl, b, xKey, c));
+            ) when xLvl == yLvl -> {
+                if (Metrics.Enabled) {
+                    Metrics.record(Metrics.Counter.Skews, 1);
+                }
+                yield AlgebraicTr.node(xLvl, a, yKey, AlgebraicTr.node(xLvl, b, xKey, c));
+            }
             case AlgebraicTr<A> _ -> t;
         };
     }
@@ -121,25 +137,27 @@ final class BalancedBst<A> implements Iterable<A> {
                            var xKey,
                            AlgebraicTr.Node(var yLvl, var b, var yKey,
                                             AlgebraicTr.Node(var zLvl, var c, var zKey, var d))
-                           ) when xLvl == yLvl && yLvl == zLvl ->
-                    //@formatter:on
-                    AlgebraicTr.node(xLvl + 1, AlgebraicTr.node(xLvl, a, xKey, b), yKey,
-                            AlgebraicTr.node(yLvl, c, zKey, d));
+                           ) when xLvl == yLvl && yLvl == zLvl -> { //@formatter:on
+                if (Metrics.Enabled) {
+                    Metrics.record(Metrics.Counter.Splits, 1);
+                }
+                yield AlgebraicTr.node(xLvl + 1, AlgebraicTr.node(xLvl, a, xKey, b), yKey,
+                        AlgebraicTr.node(yLvl, c, zKey, d));
+            }
             case AlgebraicTr<A> _ -> t;
         };
     }
 
     public Maybe<A> find(A key) {
-        return find(key, rep);
-    }
-
-    private Maybe<A> find(A key, AlgebraicTr<A> t) {
-        return switch (t) {
-            case AlgebraicTr.Node(_, var a, var k, _) when order.compare(key, k) < 0 -> find(key, a);
-            case AlgebraicTr.Node(_, _, var k, var b) when order.compare(key, k) > 0 -> find(key, b);
-            case AlgebraicTr.Node(_, _, var k, var _) when order.compare(key, k) == 0 -> Maybe.of(k);
-            default -> Maybe.none();
-        };
+        var t = rep;
+        while (t instanceof AlgebraicTr.Node<A>(_, var a, var k, var b)) {
+            int c = order.compare(key, k);
+            if (c == 0) {
+                return Maybe.of(k);
+            }
+            t = c < 0 ? a : b;
+        }
+        return Maybe.none();
     }
 
     /** O(n) - returns the number of nodes in this tree. */
@@ -152,16 +170,15 @@ final class BalancedBst<A> implements Iterable<A> {
      * tree; false otherwise.
      */
     public boolean contains(A key) {
-        return contains(key, rep);
-    }
-
-    private boolean contains(A key, AlgebraicTr<A> t) {
-        return switch (t) {
-            case AlgebraicTr.Node(_, var a, var k, _) when order.compare(key, k) < 0 -> contains(key, a);
-            case AlgebraicTr.Node(_, _, var k, var b) when order.compare(key, k) > 0 -> contains(key, b);
-            case AlgebraicTr.Node(_, _, _, _) -> true;
-            case AlgebraicTr.Empty<A> _ -> false;
-        };
+        var t = rep;
+        while (t instanceof AlgebraicTr.Node<A>(_, var a, var k, var b)) {
+            int c = order.compare(key, k);
+            if (c == 0) {
+                return true;
+            }
+            t = c < 0 ? a : b;
+        }
+        return false;
     }
 
     /**
@@ -177,18 +194,12 @@ final class BalancedBst<A> implements Iterable<A> {
 
     /**
      * O(n) - performs a (left) fold over the data stored in the nodes of
-     * this tree using the provided binary function {@code f}.
+     * this tree (in order) using the provided binary function {@code f}.
      * <p>
-     * Note: assuming {@link #insert} is correct (re: enforcing
-     * invariants A1-A4), the depth of the recursive call stack for any
-     * operation on balanced bst {@code rep} will not exceed log n (where
-     * n=total # of nodes).
-     * <p>
-     * This is in contrast to a functional linked list where we can't pop the
-     * stack until we've reached the empty node at the end of the list (after
-     * pushing frames for all N preceding nodes...). But since we're balanced
-     * here, we get to pop the stack more often -- there will never be all n
-     * nodes on the call stack at once.
+     * Note: the depth of a balanced tree is O(log n), so a recursive fold
+     * would be fine on a platform thread; but since callers might run on
+     * threads with small stacks (e.g., virtual threads) the traversal is
+     * driven by an explicit stack instead (as in {@link InOrderBstIter}).
      */
     public <B> B fold(BalancedBst<A> t, B neutral,
                       BiFunction<B, A, B> f) {
@@ -197,15 +208,119 @@ final class BalancedBst<A> implements Iterable<A> {
     }
 
     private <B> B fold(AlgebraicTr<A> t, B neutral, BiFunction<B, A, B> f) {
-        return switch (t) {
-            case AlgebraicTr.Node(_, var a, var k, var b) -> {
-                var leftVal = fold(a, neutral, f);
-                var updatedRootVal = f.apply(leftVal, k);
-                var rightVal = fold(b, updatedRootVal, f);
-                yield rightVal;
+        var acc = neutral;
+        var stack = new ArrayDeque<AlgebraicTr.Node<A>>();
+        var cur = t;
+        while (cur instanceof AlgebraicTr.Node<A> || !stack.isEmpty()) {
+            while (cur instanceof AlgebraicTr.Node<A> n) {
+                stack.push(n);
+                cur = n.left();
             }
-            case AlgebraicTr.Empty<A> _ -> neutral;
-        };
+            var n = stack.pop();
+            acc = f.apply(acc, n.key());
+            cur = n.right();
+        }
+        return acc;
+    }
+
+    /**
+     * O(n) - returns the number of nodes on the longest path from the root
+     * to a leaf (0 for the empty tree).
+     */
+    int height() {
+        var height = 0;
+        var nodes = new ArrayDeque<AlgebraicTr.Node<A>>();
+        var depths = new ArrayDeque<Integer>();
+        if (rep instanceof AlgebraicTr.Node<A> n) {
+            nodes.push(n);
+            depths.push(1);
+        }
+        while (!nodes.isEmpty()) {
+            var n = nodes.pop();
+            int d = depths.pop();
+            height = Math.max(height, d);
+            if (n.left() instanceof AlgebraicTr.Node<A> l) {
+                nodes.push(l);
+                depths.push(d + 1);
+            }
+            if (n.right() instanceof AlgebraicTr.Node<A> r) {
+                nodes.push(r);
+                depths.push(d + 1);
+            }
+        }
+        return height;
+    }
+
+    // estimated size of a Node (12 byte header, an int and three compressed
+    // references, padded to 8 bytes)
+    static final int NodeBytes = 32;
+
+    /**
+     * O(n) - measures the shape of this tree and checks invariants AA1-AA4
+     * in a single (iterative) pass; each node is assumed to retain
+     * {@code bytesPerKey} bytes besides itself (see {@link TreeStats}).
+     */
+    TreeStats stats(int bytesPerKey) {
+        var nodes = 0;
+        var height = 0;
+        var depthSum = 0L;
+        var histogram = new ArrayList<Integer>();
+        Maybe<String> violation = Maybe.none();
+        var stack = new ArrayDeque<AlgebraicTr.Node<A>>();
+        var depths = new ArrayDeque<Integer>();
+        if (rep instanceof AlgebraicTr.Node<A> root) {
+            stack.push(root);
+            depths.push(1);
+        }
+        while (!stack.isEmpty()) {
+            var n = stack.pop();
+            int d = depths.pop();
+            nodes++;
+            depthSum += d;
+            height = Math.max(height, d);
+            while (histogram.size() < n.lvl()) {
+                histogram.add(0);
+            }
+            if (n.lvl() >= 1) {
+                histogram.set(n.lvl() - 1, histogram.get(n.lvl() - 1) + 1);
+            }
+            if (violation.isEmpty()) {
+                violation = violation(n);
+            }
+            if (n.left() instanceof AlgebraicTr.Node<A> l) {
+                stack.push(l);
+                depths.push(d + 1);
+            }
+            if (n.right() instanceof AlgebraicTr.Node<A> r) {
+                stack.push(r);
+                depths.push(d + 1);
+            }
+        }
+        var averageDepth = nodes == 0 ? 0.0 : (double) depthSum / nodes;
+        var bytes = (long) nodes * (NodeBytes + bytesPerKey);
+        return new TreeStats(nodes, height, histogram, averageDepth, bytes, violation);
+    }
+
+    // the AA invariant (if any) broken at n itself
+    private Maybe<String> violation(AlgebraicTr.Node<A> n) {
+        var lv = n.lvl();
+        var lvr = lvl(n.right());
+        var lvrr = n.right() instanceof AlgebraicTr.Node<A> r ? lvl(r.right()) : 0;
+        String broken = null;
+        // a missing child above level 1 also breaks AA1 or AA2, so AA4 is
+        // checked first to report it as what it is
+        if (lv > 1 && (n.left() instanceof AlgebraicTr.Empty<A> || n.right() instanceof AlgebraicTr.Empty<A>)) {
+            broken = "AA4";
+        } else if (lvl(n.left()) != lv - 1) {
+            broken = "AA1";
+        } else if (lvr != lv && lvr != lv - 1) {
+            broken = "AA2";
+        } else if (lvrr >= lv) {
+            broken = "AA3";
+        }
+        return broken == null
+                ? Maybe.none()
+                : Maybe.of(broken + " broken at the level " + lv + " node holding " + n.key());
     }
 
     /**
@@ -222,56 +337,71 @@ final class BalancedBst<A> implements Iterable<A> {
      *    - if x < key, adjust node with delete x in left
      *    - if x > key, adjust node with delete x in right
      *    - if found key: handle Leaf children or else do splitMax on left
+     *  <p>
+     *  Iterative: the search path is recorded on the way down and the
+     *  {@link #adjust} calls are applied bottom up on the way back.
      */
     private AlgebraicTr<A> delete(A x, AlgebraicTr<A> t) {
-        if (t instanceof AlgebraicTr.Empty<A>) {
-            return t; // Leaf
-        }
-        if (t instanceof AlgebraicTr.Node<A>(int lv, AlgebraicTr<A> l, A key, AlgebraicTr<A> r)) {
-            int c = order.compare(x, key);
-            if (c < 0) {
-                // LT => adjust(Node (delete x l) (key, lv) r)
-                var newLeft = delete(x, l);
-                return adjust(AlgebraicTr.node(lv, newLeft, key, r));
-            }
-            else if (c > 0) {
-                // GT => adjust(Node l (key, lv) (delete x r))
-                var newRight = delete(x, r);
-                return adjust(AlgebraicTr.node(lv, l, key, newRight));
+        var path = new ArrayDeque<AlgebraicTr.Node<A>>();
+        var wentLeft = new ArrayDeque<Boolean>();
+        var cur = t;
+        AlgebraicTr<A> result = null;
+        while (result == null) {
+            if (!(cur instanceof AlgebraicTr.Node<A> n)) {
+                return t; // not found: nothing to delete
             }
-            else {
+            var lv = n.lvl();
+            var l = n.left();
+            var r = n.right();
+            int c = order.compare(x, n.key());
+            if (c != 0) {
+                path.push(n);
+                wentLeft.push(c < 0);
+                cur = c < 0 ? l : r;
+            } else if (l instanceof AlgebraicTr.Empty<A>) {
                 // EQ => found the node
                 // if l=Leaf then r
-                if (l instanceof AlgebraicTr.Empty<A>) {
-                    return r;
-                }
+                result = r;
+            } else if (r instanceof AlgebraicTr.Empty<A>) {
                 // else if r=Leaf then l
-                if (r instanceof AlgebraicTr.Empty<A>) {
-                    return l;
-                }
+                result = l;
+            } else {
                 // else let (l', b) = split_max l in adjust(Node l' (b, lv) r)
-                var leftPair = dellrg(l); // returns NodePair
+                var leftPair = dellrg(l);
                 var lPrime = leftPair.first();    // the left subtree with max removed
                 var maxKey = leftPair.second();   // the actual max key
-                var raw = AlgebraicTr.node(lv, lPrime, maxKey, r);
-                return adjust(raw);
+                result = adjust(AlgebraicTr.node(lv, lPrime, maxKey, r));
             }
         }
-        return t; // unreachable
+        while (!path.isEmpty()) {
+            var n = path.pop();
+            result = wentLeft.pop()
+                    // LT => adjust(Node (delete x l) (key, lv) r)
+                    ? adjust(AlgebraicTr.node(n.lvl(), result, n.key(), n.right()))
+                    // GT => adjust(Node l (key, lv) (delete x r))
+                    : adjust(AlgebraicTr.node(n.lvl(), n.left(), n.key(), result));
+        }
+        return result;
     }
 
-    // delete regular - was bugged in original paper
+    // delete regular - was bugged in original paper; removes the max (the
+    // bottom of the right spine), then adjusts the spine bottom up
     private Pair<AlgebraicTr<A>, A> dellrg(AlgebraicTr<A> t) {
-        return switch (t) {
-            case AlgebraicTr.Empty<A> _ ->
-                    throw new NoSuchElementException("Cannot find in-order predecessor in an empty tree.");
-            case AlgebraicTr.Node(_, var lt, var kt, AlgebraicTr.Empty<A> _) -> Pair.of(lt, kt);
-            case AlgebraicTr.Node(var lvt, var lt, var kt, var rt) -> {
-                var p = dellrg(rt);
-                var rebuilt = AlgebraicTr.node(lvt, lt, kt, p.first());
-                yield Pair.of(adjust(rebuilt), p.second());
-            }
-        };
+        var spine = new ArrayDeque<AlgebraicTr.Node<A>>();
+        var cur = t;
+        while (cur instanceof AlgebraicTr.Node<A> n && n.right() instanceof AlgebraicTr.Node<A>) {
+            spine.push(n);
+            cur = n.right();
+        }
+        if (!(cur instanceof AlgebraicTr.Node<A>(_, var lt, var kt, _))) {
+            throw new NoSuchElementException("Cannot find in-order predecessor in an empty tree.");
+        }
+        var result = lt;
+        while (!spine.isEmpty()) {
+            var n = spine.pop();
+            result = adjust(AlgebraicTr.node(n.lvl(), n.left(), n.key(), result));
+        }
+        return Pair.of(result, kt);
     }
 
     /**
@@ -293,6 +423,9 @@ final class BalancedBst<A> implements Iterable<A> {
             if (lvl(l) >= lv - 1 && lvl(r) >= lv - 1) {
                 return t;
             }
+            if (Metrics.Enabled) {
+                Metrics.record(Metrics.Counter.Adjusts, 1);
+            }
             // else if lvl(r) < lv -1 && sngl(l) => skew(Node l (x, lv-1) r)
             if (lvl(r) < lv - 1 && sngl(l)) {
                 return skew(AlgebraicTr.node(lv - 1, l, x, r));
@@ -336,6 +469,190 @@ final class BalancedBst<A> implements Iterable<A> {
         return t;
     }
 
+    // bulk operations:
+
+    /**
+     * O(m log(n/m + 1)) - inserts every item of {@code batch} (of size m)
+     * into this tree (of size n); returns a pair: (resulting-tree,
+     * number-of-keys-added).
+     * <p>
+     * The batch is sorted first and then merged into the tree in a single
+     * top down pass: each subtree receives only the (contiguous) slice of
+     * the batch that belongs in it, and the results are put back together
+     * with {@link #join}. So a path shared by many keys of the batch is
+     * copied once per batch rather than once per key, and subtrees not
+     * touched by the batch are shared as is.
+     * <p>
+     * If {@code replace} holds, a key already in the tree is replaced by
+     * the (last) equal item of the batch (for maps: the new binding);
+     * otherwise the tree's key is kept (as {@link #insert} does).
+     */
+    public Pair<BalancedBst<A>, Integer> insertAll(Iterable<A> batch, boolean replace) {
+        var keys = sortedDistinct(batch, replace);
+        var added = new int[1];
+        var updatedRep = insertAll(rep, keys, 0, keys.size(), replace, added);
+        return Pair.of(new BalancedBst<>(order, updatedRep), added[0]);
+    }
+
+    /**
+     * O(m log(n/m + 1)) - deletes every key in {@code batch} from this
+     * tree; returns a pair: (resulting-tree, number-of-keys-removed). As with
+     * {@link #insertAll}, this is a single merged pass over the tree.
+     */
+    public Pair<BalancedBst<A>, Integer> deleteAll(Iterable<A> batch) {
+        var keys = sortedDistinct(batch, false);
+        var removed = new int[1];
+        var updatedRep = deleteAll(rep, keys, 0, keys.size(), removed);
+        return Pair.of(new BalancedBst<>(order, updatedRep), removed[0]);
+    }
+
+    /**
+     * O(n) - builds a balanced tree from {@code keys}, which must be strictly
+     * increasing w.r.t. {@code o} (no comparisons are made).
+     */
+    static <T> BalancedBst<T> ofSorted(Comparator<T> o, List<T> keys) {
+        var empty = BalancedBst.empty(o);
+        return new BalancedBst<>(empty.order, empty.build(keys, 0, keys.size()));
+    }
+
+    /** O(1) - wraps an existing tree {@code rep}, which must be ordered by {@code o}. */
+    static <T> BalancedBst<T> ofRep(Comparator<T> o, AlgebraicTr<T> rep) {
+        return new BalancedBst<>(Metrics.counting(o), rep);
+    }
+
+    // note: the recursion in the helpers below follows the shape of the tree
+    // (and halves the batch), so its depth is O(log n + log m)
+
+    private AlgebraicTr<A> insertAll(AlgebraicTr<A> t, List<A> keys, int lo, int hi,
+                                     boolean replace, int[] added) {
+        if (lo >= hi) {
+            return t;
+        }
+        if (!(t instanceof AlgebraicTr.Node<A>(_, var a, var k, var b))) {
+            added[0] += hi - lo;
+            return build(keys, lo, hi);
+        }
+        var p = lowerBound(keys, lo, hi, k);
+        var found = p < hi && order.compare(keys.get(p), k) == 0;
+        var newLeft = insertAll(a, keys, lo, p, replace, added);
+        var newRight = insertAll(b, keys, found ? p + 1 : p, hi, replace, added);
+        var newKey = found && replace ? keys.get(p) : k;
+        if (newLeft == a && newRight == b && newKey == k) {
+            return t;
+        }
+        return join(newLeft, newKey, newRight);
+    }
+
+    private AlgebraicTr<A> deleteAll(AlgebraicTr<A> t, List<A> keys, int lo, int hi, int[] removed) {
+        if (lo >= hi || !(t instanceof AlgebraicTr.Node<A>(_, var a, var k, var b))) {
+            return t;
+        }
+        var p = lowerBound(keys, lo, hi, k);
+        var found = p < hi && order.compare(keys.get(p), k) == 0;
+        var newLeft = deleteAll(a, keys, lo, p, removed);
+        var newRight = deleteAll(b, keys, found ? p + 1 : p, hi, removed);
+        if (found) {
+            removed[0] += 1;
+            return join(newLeft, newRight);
+        }
+        if (newLeft == a && newRight == b) {
+            return t;
+        }
+        return join(newLeft, k, newRight);
+    }
+
+    private AlgebraicTr<A> build(List<A> keys, int lo, int hi) {
+        if (lo >= hi) {
+            return AlgebraicTr.empty();
+        }
+        var mid = (lo + hi) >>> 1;
+        return join(build(keys, lo, mid), keys.get(mid), build(keys, mid + 1, hi));
+    }
+
+    /**
+     * O(|lvl(l) - lvl(r)| + 1) - returns a tree holding the keys of
+     * {@code l}, then {@code k}, then the keys of {@code r}; requires
+     * {@code l < k < r} (key-wise). Both {@code l} and {@code r} can be any
+     * valid AA trees.
+     * <p>
+     * The idea (as in join-based algorithms for red-black trees): walk down
+     * the right spine of the taller tree {@code l} (or the left spine of a
+     * taller {@code r}) to the subtree {@code c} at the level of the other
+     * tree, put {@code Node(lvl(c) + 1, c, k, r)} in its place, and fix up
+     * the spine with {@link #skew}/{@link #split} -- exactly as insert
+     * would for a new leaf (which is the case {@code c = r = Empty}).
+     */
+    private AlgebraicTr<A> join(AlgebraicTr<A> l, A k, AlgebraicTr<A> r) {
+        var h = Math.min(lvl(l), lvl(r));
+        var spine = new ArrayDeque<AlgebraicTr.Node<A>>();
+        var descendRight = lvl(l) > lvl(r);
+        var cur = descendRight ? l : r;
+        while (lvl(cur) > h) {
+            var n = (AlgebraicTr.Node<A>) cur;
+            spine.push(n);
+            cur = descendRight ? n.right() : n.left();
+        }
+        var result = descendRight
+                ? AlgebraicTr.node(h + 1, cur, k, r)
+                : AlgebraicTr.node(h + 1, l, k, cur);
+        while (!spine.isEmpty()) {
+            var n = spine.pop();
+            var rebuilt = descendRight
+                    ? AlgebraicTr.node(n.lvl(), n.left(), n.key(), result)
+                    : AlgebraicTr.node(n.lvl(), result, n.key(), n.right());
+            result = split(skew(rebuilt));
+        }
+        return result;
+    }
+
+    /** Like {@link #join(AlgebraicTr, Object, AlgebraicTr)}, minus the middle key. */
+    private AlgebraicTr<A> join(AlgebraicTr<A> l, AlgebraicTr<A> r) {
+        if (l instanceof AlgebraicTr.Empty<A>) {
+            return r;
+        }
+        if (r instanceof AlgebraicTr.Empty<A>) {
+            return l;
+        }
+        var p = dellrg(l);
+        return join(p.first(), p.second(), r);
+    }
+
+    /** Returns the first index in {@code [lo, hi)} whose key is >= {@code k}. */
+    private int lowerBound(List<A> keys, int lo, int hi, A k) {
+        while (lo < hi) {
+            var mid = (lo + hi) >>> 1;
+            if (order.compare(keys.get(mid), k) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Sorts {@code batch} (stably) and drops duplicates, keeping the last
+     * of several equal items if {@code keepLast} holds (the first otherwise).
+     */
+    private List<A> sortedDistinct(Iterable<A> batch, boolean keepLast) {
+        var sorted = new ArrayList<A>();
+        for (var x : batch) {
+            sorted.add(x);
+        }
+        sorted.sort(order);
+        var result = new ArrayList<A>(sorted.size());
+        for (var x : sorted) {
+            if (!result.isEmpty() && order.compare(result.getLast(), x) == 0) {
+                if (keepLast) {
+                    result.set(result.size() - 1, x);
+                }
+            } else {
+                result.add(x);
+            }
+        }
+        return result;
+    }
+
     private int lvl(AlgebraicTr<A> t) {
         return switch (t) {
             case AlgebraicTr.Node(var lvt, _, _, _) -> lvt;
@@ -442,6 +759,9 @@ final class BalancedBst<A> implements Iterable<A> {
         }
 
         static <T> AlgebraicTr<T> node(int lvl, AlgebraicTr<T> left, T data, AlgebraicTr<T> right) {
+            if (Metrics.Enabled) {
+                Metrics.record(Metrics.Counter.NodeAllocations, 1);
+            }
             return new Node<>(lvl, left, data, right);
         }
     }
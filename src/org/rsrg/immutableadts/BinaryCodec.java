@@ -0,0 +1,233 @@
+package org.rsrg.immutableadts;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A compact, versioned binary format for {@link VTreeMap}s,
+ * {@link VTreeSet}s, {@link VList}s and {@link VChain}s.
+ * <p>
+ * Every collection is written as a header followed by its elements:
+ * <pre>
+ *   int   magic    (0x56414454, "VADT")
+ *   byte  version  (currently 1)
+ *   byte  kind     (1 = map, 2 = set, 3 = list, 4 = chain)
+ *   int   count    (number of elements, or of key/value pairs)
+ *   ...   count elements (a map's keys and values alternate)
+ * </pre>
+ * Elements are encoded by pluggable {@link ElementCodec}s. Maps and sets are
+ * written in ascending order, streaming straight off the tree's iterator;
+ * reading them back checks that order and rebuilds the tree in O(n) with
+ * {@link BalancedBst#ofSorted} instead of re-inserting every key. (The
+ * comparator is not part of the format: a reader must pass the one the
+ * writer's collection was sorted with.)
+ * <p>
+ * Malformed input is reported with an {@link IOException}.
+ */
+public final class BinaryCodec {
+
+    static final int Magic = 0x56414454;
+    static final byte Version = 1;
+
+    static final byte MapKind = 1;
+    static final byte SetKind = 2;
+    static final byte ListKind = 3;
+    static final byte ChainKind = 4;
+
+    private BinaryCodec() {}
+
+    // the built in element codecs, see ElementCodec
+
+    static final ElementCodec<Integer> Ints = new ElementCodec<>() {
+        @Override public void write(DataOutput out, Integer value) throws IOException {
+            out.writeInt(value);
+        }
+
+        @Override public Integer read(DataInput in) throws IOException {
+            return in.readInt();
+        }
+    };
+
+    static final ElementCodec<Long> Longs = new ElementCodec<>() {
+        @Override public void write(DataOutput out, Long value) throws IOException {
+            out.writeLong(value);
+        }
+
+        @Override public Long read(DataInput in) throws IOException {
+            return in.readLong();
+        }
+    };
+
+    static final ElementCodec<Double> Doubles = new ElementCodec<>() {
+        @Override public void write(DataOutput out, Double value) throws IOException {
+            out.writeDouble(value);
+        }
+
+        @Override public Double read(DataInput in) throws IOException {
+            return in.readDouble();
+        }
+    };
+
+    static final ElementCodec<String> Strings = new ElementCodec<>() {
+        @Override public void write(DataOutput out, String value) throws IOException {
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        @Override public String read(DataInput in) throws IOException {
+            var len = in.readInt();
+            if (len < 0) {
+                throw new IOException("negative string length: " + len);
+            }
+            return new String(readBytes(in, len), StandardCharsets.UTF_8);
+        }
+    };
+
+    // writing:
+
+    /** O(n) - writes {@code m} to {@code out}. */
+    public static <K, V> void writeMap(DataOutput out, VTreeMap<K, V> m,
+                                       ElementCodec<K> keys, ElementCodec<V> values) throws IOException {
+        writeHeader(out, MapKind, m.size());
+        for (var kv : m) {
+            keys.write(out, kv.first());
+            values.write(out, kv.second());
+        }
+    }
+
+    /** O(n) - writes {@code s} to {@code out}. */
+    public static <A> void writeSet(DataOutput out, VTreeSet<A> s, ElementCodec<A> items) throws IOException {
+        writeHeader(out, SetKind, s.size());
+        for (var x : s) {
+            items.write(out, x);
+        }
+    }
+
+    /** O(n) - writes {@code xs} to {@code out}. */
+    public static <A> void writeList(DataOutput out, VList<A> xs, ElementCodec<A> items) throws IOException {
+        writeHeader(out, ListKind, xs.length());
+        for (var x : xs) {
+            items.write(out, x);
+        }
+    }
+
+    /** O(n) - writes {@code c} to {@code out}. */
+    public static <A> void writeChain(DataOutput out, VChain<A> c, ElementCodec<A> items) throws IOException {
+        writeHeader(out, ChainKind, c.length());
+        for (var x : c) {
+            items.write(out, x);
+        }
+    }
+
+    // reading:
+
+    /**
+     * O(n) - reads a map written by {@link #writeMap}; {@code o} must be the
+     * order the written map was sorted by.
+     */
+    public static <K, V> VTreeMap<K, V> readMap(DataInput in, Comparator<K> o,
+                                                ElementCodec<K> keys, ElementCodec<V> values) throws IOException {
+        var count = readHeader(in, MapKind);
+        var kvs = new ArrayList<Pair<K, V>>(initialCapacity(count));
+        K prev = null;
+        for (var i = 0; i < count; i++) {
+            var k = keys.read(in);
+            if (i > 0 && o.compare(prev, k) >= 0) {
+                throw new IOException("map keys not strictly increasing at index " + i);
+            }
+            kvs.add(Pair.of(k, values.read(in)));
+            prev = k;
+        }
+        return VTreeMap.ofSorted(o, kvs);
+    }
+
+    /** O(n) - reads a set written by {@link #writeSet}, see {@link #readMap}. */
+    public static <A> VTreeSet<A> readSet(DataInput in, Comparator<A> o, ElementCodec<A> items) throws IOException {
+        var count = readHeader(in, SetKind);
+        var xs = new ArrayList<A>(initialCapacity(count));
+        for (var i = 0; i < count; i++) {
+            var x = items.read(in);
+            if (i > 0 && o.compare(xs.getLast(), x) >= 0) {
+                throw new IOException("set items not strictly increasing at index " + i);
+            }
+            xs.add(x);
+        }
+        return VTreeSet.ofSorted(o, xs);
+    }
+
+    /** O(n) - reads a list written by {@link #writeList}. */
+    public static <A> VList<A> readList(DataInput in, ElementCodec<A> items) throws IOException {
+        var count = readHeader(in, ListKind);
+        var xs = new ArrayList<A>(initialCapacity(count));
+        for (var i = 0; i < count; i++) {
+            xs.add(items.read(in));
+        }
+        return VList.ofAll(xs);
+    }
+
+    /** O(n) - reads a chain written by {@link #writeChain}. */
+    public static <A> VChain<A> readChain(DataInput in, ElementCodec<A> items) throws IOException {
+        var count = readHeader(in, ChainKind);
+        var b = VChain.<A>builder();
+        for (var i = 0; i < count; i++) {
+            b.add(items.read(in));
+        }
+        return b.build();
+    }
+
+    // helpers:
+
+    private static void writeHeader(DataOutput out, byte kind, int count) throws IOException {
+        out.writeInt(Magic);
+        out.writeByte(Version);
+        out.writeByte(kind);
+        out.writeInt(count);
+    }
+
+    /** Checks the header and returns the element count. */
+    private static int readHeader(DataInput in, byte expectedKind) throws IOException {
+        var magic = in.readInt();
+        if (magic != Magic) {
+            throw new IOException("not a collection (bad magic number 0x" + Integer.toHexString(magic) + ")");
+        }
+        var version = in.readByte();
+        if (version < 1 || version > Version) {
+            throw new IOException("unsupported format version " + version);
+        }
+        var kind = in.readByte();
+        if (kind != expectedKind) {
+            throw new IOException("expected collection kind " + expectedKind + " but found " + kind);
+        }
+        var count = in.readInt();
+        if (count < 0) {
+            throw new IOException("negative element count: " + count);
+        }
+        return count;
+    }
+
+    // don't trust a (possibly corrupt) count with a huge up-front allocation
+    private static int initialCapacity(int count) {
+        return Math.min(count, 1 << 16);
+    }
+
+    // likewise for a length: the buffer only grows as the bytes actually
+    // arrive, so a corrupt length runs into the end of the input instead
+    private static byte[] readBytes(DataInput in, int len) throws IOException {
+        var bytes = new byte[initialCapacity(len)];
+        var read = 0;
+        while (true) {
+            in.readFully(bytes, read, bytes.length - read);
+            read = bytes.length;
+            if (read == len) {
+                return bytes;
+            }
+            bytes = Arrays.copyOf(bytes, (int) Math.min(len, 2L * read));
+        }
+    }
+}
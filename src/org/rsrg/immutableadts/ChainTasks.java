@@ -0,0 +1,181 @@
+package org.rsrg.immutableadts;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Fork/join tasks backing the parallel operations on {@link VChain}.
+ * <p>
+ * A task covers either a whole (sub)chain or, for an array-backed
+ * {@link VChain.Leaf}, a range {@code [lo, hi)} of it. {@link VChain.Link}
+ * nodes are split at their children; large leaves are split down the
+ * middle. Anything at or below {@link #SequentialThreshold} elements (and any
+ * {@link VChain.Proxy} leaf) is processed sequentially.
+ */
+final class ChainTasks {
+
+    static final int SequentialThreshold = 1 << 12;
+
+    private ChainTasks() {}
+
+    private abstract static class ChainTask<A, R> extends RecursiveTask<R> {
+        final VChain<A> c;
+        final int lo, hi;
+
+        ChainTask(VChain<A> c, int lo, int hi) {
+            this.c = c;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        abstract ChainTask<A, R> child(VChain<A> c, int lo, int hi);
+
+        /** Processes elements {@code [lo, hi)} of {@code c} on this thread. */
+        abstract R sequential();
+
+        abstract R combine(R left, R right);
+
+        @Override protected final R compute() {
+            if (hi - lo <= SequentialThreshold) {
+                return sequential();
+            }
+            ChainTask<A, R> left;
+            ChainTask<A, R> right;
+            switch (c) {
+                case VChain.Link(var l, var r, _, _) -> {
+                    left = child(l, 0, l.length());
+                    right = child(r, 0, r.length());
+                }
+                case VChain.Leaf<A> _ -> {
+                    var mid = (lo + hi) >>> 1;
+                    left = child(c, lo, mid);
+                    right = child(c, mid, hi);
+                }
+                default -> {
+                    return sequential();
+                }
+            }
+            left.fork();
+            var rightResult = right.compute();
+            return combine(left.join(), rightResult);
+        }
+
+        /** Returns the elements {@code [lo, hi)} of {@code c} (in order). */
+        final Iterable<A> elements() {
+            if (!(c instanceof VChain.Leaf<A> lf)) {
+                return c; // tasks only ever cover part of a leaf
+            }
+            return () -> new Iterator<>() {
+                private int i = lo;
+
+                @Override public boolean hasNext() {
+                    return i < hi;
+                }
+
+                @Override public A next() {
+                    if (i >= hi) {
+                        throw new NoSuchElementException();
+                    }
+                    return lf.get(i++);
+                }
+            };
+        }
+    }
+
+    static final class MapTask<A, B> extends ChainTask<A, VChain<B>> {
+        private final Function<A, B> f;
+
+        MapTask(VChain<A> c, int lo, int hi, Function<A, B> f) {
+            super(c, lo, hi);
+            this.f = f;
+        }
+
+        @Override MapTask<A, B> child(VChain<A> c, int lo, int hi) {
+            return new MapTask<>(c, lo, hi, f);
+        }
+
+        @SuppressWarnings("unchecked") @Override VChain<B> sequential() {
+            if (!(c instanceof VChain.Leaf<A>)) {
+                return c.map(f);
+            }
+            var result = new Object[hi - lo];
+            var i = 0;
+            for (var x : elements()) {
+                result[i++] = f.apply(x);
+            }
+            return VChain.of((B[]) result);
+        }
+
+        @Override VChain<B> combine(VChain<B> left, VChain<B> right) {
+            return left.concat(right);
+        }
+    }
+
+    static final class FoldTask<A, B> extends ChainTask<A, B> {
+        private final B identity;
+        private final BiFunction<B, A, B> accumulate;
+        private final BinaryOperator<B> combiner;
+
+        FoldTask(VChain<A> c, int lo, int hi, B identity,
+                 BiFunction<B, A, B> accumulate, BinaryOperator<B> combiner) {
+            super(c, lo, hi);
+            this.identity = identity;
+            this.accumulate = accumulate;
+            this.combiner = combiner;
+        }
+
+        @Override FoldTask<A, B> child(VChain<A> c, int lo, int hi) {
+            return new FoldTask<>(c, lo, hi, identity, accumulate, combiner);
+        }
+
+        @Override B sequential() {
+            var acc = identity;
+            for (var x : elements()) {
+                acc = accumulate.apply(acc, x);
+            }
+            return acc;
+        }
+
+        @Override B combine(B left, B right) {
+            return combiner.apply(left, right);
+        }
+    }
+
+    static final class ExistsTask<A> extends ChainTask<A, Boolean> {
+        private final Function<A, Boolean> p;
+        private final AtomicBoolean found; // shared by all subtasks
+
+        ExistsTask(VChain<A> c, int lo, int hi, Function<A, Boolean> p, AtomicBoolean found) {
+            super(c, lo, hi);
+            this.p = p;
+            this.found = found;
+        }
+
+        @Override ExistsTask<A> child(VChain<A> c, int lo, int hi) {
+            return new ExistsTask<>(c, lo, hi, p, found);
+        }
+
+        @Override Boolean sequential() {
+            for (var x : elements()) {
+                if (found.get()) {
+                    // short-circuit: some other subtask already found a witness
+                    return true;
+                }
+                if (p.apply(x)) {
+                    found.set(true);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override Boolean combine(Boolean left, Boolean right) {
+            return left || right;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.rsrg.immutableadts;
+
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * A mutable, thread safe reference to a {@link LayeredTreeMap} that keeps its
+ * delta small by compacting it into the base in the background.
+ * <p>
+ * Once the delta holds more than {@code max(minDelta, baseSize / ratio)}
+ * entries, the writer that notices seals it and hands the merge to an
+ * executor; meanwhile reads see the sealed layer and writes go to a fresh
+ * delta. When the merge is done, the new base replaces the base and the
+ * sealed layer in whatever the current version is by then. As the delta may
+ * grow to a fixed fraction of the base before being merged, each binding is
+ * rewritten by compactions only O(ratio) times on average (write
+ * amplification stays bounded), while the delta (and with it the cost of
+ * updates) stays small.
+ *
+ * @param <K> the type of keys.
+ * @param <V> the type of values.
+ */
+public final class CompactingTreeMap<K, V> {
+
+    private final AtomicReference<LayeredTreeMap<K, V>> ref;
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+    private final Executor executor;
+    private final int minDelta;
+    private final int ratio;
+
+    /**
+     * @param minDelta never compact deltas smaller than this.
+     * @param ratio    compact once the delta exceeds {@code 1/ratio} of the
+     *                 base.
+     */
+    public CompactingTreeMap(LayeredTreeMap<K, V> initial, Executor executor, int minDelta, int ratio) {
+        if (minDelta < 1 || ratio < 1) {
+            throw new IllegalArgumentException("minDelta and ratio must be positive");
+        }
+        this.ref = new AtomicReference<>(initial);
+        this.executor = executor;
+        this.minDelta = minDelta;
+        this.ratio = ratio;
+    }
+
+    /** Compacts on the common pool once the delta exceeds 1/8 of the base. */
+    public static <A, B> CompactingTreeMap<A, B> empty(Comparator<A> o) {
+        return new CompactingTreeMap<>(LayeredTreeMap.empty(o), ForkJoinPool.commonPool(), 1024, 8);
+    }
+
+    public static <A extends Comparable<A>, B> CompactingTreeMap<A, B> empty() {
+        return empty(Comparable::compareTo);
+    }
+
+    /** O(1) - returns the current version of the map. */
+    public LayeredTreeMap<K, V> snapshot() {
+        return ref.get();
+    }
+
+    public Maybe<V> lookup(K key) {
+        return ref.get().lookup(key);
+    }
+
+    public void insert(K key, V value) {
+        update(m -> m.insert(key, value));
+    }
+
+    public void remove(K key) {
+        update(m -> m.remove(key));
+    }
+
+    /**
+     * Atomically replaces the current map {@code m} with {@code f(m)} (which
+     * may be called more than once); returns the new map.
+     */
+    public LayeredTreeMap<K, V> update(UnaryOperator<LayeredTreeMap<K, V>> f) {
+        while (true) {
+            var current = ref.get();
+            var next = f.apply(current);
+            if (current == next || ref.compareAndSet(current, next)) {
+                maybeCompact(next);
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Compacts the current version now (if its delta isn't empty); the
+     * returned future completes once the new base is in place. If a
+     * compaction is already running, returns a completed future instead; if
+     * the compaction fails (or the executor rejects it), the returned future
+     * fails and the compaction is retried on a later update.
+     */
+    public CompletableFuture<Void> compactAsync() {
+        if (!compacting.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return startCompaction();
+    }
+
+    private void maybeCompact(LayeredTreeMap<K, V> m) {
+        // a sealed layer left behind by a failed compaction is retried
+        var due = m.hasSealed() || m.deltaSize() > Math.max(minDelta, m.baseSize() / ratio);
+        if (due && compacting.compareAndSet(false, true)) {
+            startCompaction();
+        }
+    }
+
+    // precondition: we own the compacting flag
+    private CompletableFuture<Void> startCompaction() {
+        LayeredTreeMap<K, V> toCompact;
+        while (true) {
+            var current = ref.get();
+            if (current.hasSealed()) {
+                // an earlier compaction of this layer failed
+                toCompact = current;
+                break;
+            }
+            if (current.deltaSize() == 0) {
+                compacting.set(false);
+                return CompletableFuture.completedFuture(null);
+            }
+            var sealed = current.seal();
+            if (ref.compareAndSet(current, sealed)) {
+                toCompact = sealed;
+                break;
+            }
+        }
+        CompletableFuture<LayeredTreeMap.Frozen<K, V>> merge;
+        try {
+            merge = CompletableFuture.supplyAsync(toCompact::compactSealed, executor);
+        } catch (RejectedExecutionException e) {
+            // the sealed layer stays readable and is retried on a later write
+            compacting.set(false);
+            return CompletableFuture.failedFuture(e);
+        }
+        var sealed = toCompact;
+        return merge
+                .thenAccept(compacted -> {
+                    while (true) {
+                        var current = ref.get();
+                        if (!current.sameLowerLayers(sealed)) {
+                            // an update compacted (or replaced) the map itself
+                            break;
+                        }
+                        if (ref.compareAndSet(current, current.withCompacted(compacted))) {
+                            break;
+                        }
+                    }
+                })
+                .whenComplete((_, failure) -> {
+                    compacting.set(false);
+                    if (failure == null) {
+                        maybeCompact(ref.get());
+                    }
+                });
+    }
+
+    @Override public String toString() {
+        return ref.get().toString();
+    }
+}
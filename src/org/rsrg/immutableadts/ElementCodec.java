@@ -0,0 +1,40 @@
+package org.rsrg.immutableadts;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads single elements of a collection in the
+ * {@link BinaryCodec binary format}. Variable length encodings must carry
+ * their own length (as {@link #strings()} does), so that a reader knows where
+ * the next element starts.
+ *
+ * @param <A> the type of elements.
+ */
+public interface ElementCodec<A> {
+
+    void write(DataOutput out, A value) throws IOException;
+
+    A read(DataInput in) throws IOException;
+
+    static ElementCodec<Integer> ints() {
+        return BinaryCodec.Ints;
+    }
+
+    static ElementCodec<Long> longs() {
+        return BinaryCodec.Longs;
+    }
+
+    static ElementCodec<Double> doubles() {
+        return BinaryCodec.Doubles;
+    }
+
+    /**
+     * UTF-8, prefixed with the length in bytes (unlike
+     * {@link DataOutput#writeUTF}, this isn't limited to 64K).
+     */
+    static ElementCodec<String> strings() {
+        return BinaryCodec.Strings;
+    }
+}
@@ -0,0 +1,108 @@
+package org.rsrg.immutableadts;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * JDK Flight Recorder events for the expensive (linear or batch) operations
+ * on the collections in this package, so that a recording can attribute
+ * latency spikes to them.
+ * <p>
+ * Each event carries the sizes involved and its duration, and is only
+ * committed if it took longer than its threshold. Thresholds default to
+ * 10 ms and can be changed like those of any JDK event, e.g. in a
+ * {@code .jfc} file or with
+ * {@code -XX:StartFlightRecording:settings=...,org.rsrg.immutableadts.ListAppend#threshold=1ms}.
+ * While no recording is running, an instrumented operation only pays for
+ * checking that its event is disabled.
+ */
+final class Events {
+
+    private Events() {}
+
+    /** Runs {@code body} as a {@link TreeBulkOperation} on trees of {@code inputSize} elements. */
+    static <T> T treeBulkOperation(String operation, long inputSize, Supplier<T> body,
+                                   ToLongFunction<T> resultSize) {
+        var event = new TreeBulkOperation();
+        event.begin();
+        var result = body.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.inputSize = inputSize;
+            event.resultSize = resultSize.applyAsLong(result);
+            event.commit();
+        }
+        return result;
+    }
+
+    /** Runs {@code body} as a {@link ListAppend}. */
+    static <T> T listAppend(long copied, long shared, Supplier<T> body) {
+        var event = new ListAppend();
+        event.begin();
+        var result = body.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.copied = copied;
+            event.shared = shared;
+            event.commit();
+        }
+        return result;
+    }
+
+    /** Runs {@code body} as a {@link ChainRestructure}. */
+    static <T> T chainRestructure(String operation, Supplier<T> body, ToLongFunction<T> length) {
+        var event = new ChainRestructure();
+        event.begin();
+        var result = body.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.length = length.applyAsLong(result);
+            event.commit();
+        }
+        return result;
+    }
+
+    @Name("org.rsrg.immutableadts.TreeBulkOperation")
+    @Label("Tree Bulk Operation")
+    @Category({"Immutable ADTs"})
+    @Description("A batch update or union of a VTreeMap or VTreeSet")
+    @Threshold("10 ms")
+    @StackTrace(true)
+    static final class TreeBulkOperation extends Event {
+        @Label("Operation") String operation;
+        @Label("Input Size") @Description("Elements in the tree(s) operated on") long inputSize;
+        @Label("Result Size") @Description("Elements in the resulting tree") long resultSize;
+    }
+
+    @Name("org.rsrg.immutableadts.ListAppend")
+    @Label("List Append")
+    @Category({"Immutable ADTs"})
+    @Description("A VList append, which copies the cells of the left list")
+    @Threshold("10 ms")
+    @StackTrace(true)
+    static final class ListAppend extends Event {
+        @Label("Copied Cells") long copied;
+        @Label("Shared Cells") long shared;
+    }
+
+    @Name("org.rsrg.immutableadts.ChainRestructure")
+    @Label("Chain Restructure")
+    @Category({"Immutable ADTs"})
+    @Description("A VChain operation that walks and copies a whole chain")
+    @Threshold("10 ms")
+    @StackTrace(true)
+    static final class ChainRestructure extends Event {
+        @Label("Operation") String operation;
+        @Label("Length") long length;
+    }
+}
@@ -0,0 +1,193 @@
+package org.rsrg.immutableadts;
+
+import org.rsrg.immutableadts.BalancedBst.AlgebraicTr;
+import org.rsrg.immutableadts.VList.AlgebraicLst;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A hash-consing factory: interning a {@link VTreeSet}, {@link VTreeMap} or
+ * {@link VList} returns an equal collection built from nodes (cells) that
+ * are shared with every equal structure interned before. Equal collections
+ * interned by the same interner then share all of their memory, and
+ * comparing them with {@code equals} is a pointer comparison.
+ * <p>
+ * Nodes are interned bottom up, so a node is identified by its level, its
+ * element (compared with {@code equals}) and the identities of its (already
+ * interned) children; interning a collection is thus O(n) expected. Trees
+ * are first rebuilt in the canonical shape for their size (AA trees with
+ * the same items can otherwise differ in shape, depending on how they were
+ * built). Lists also share interned suffixes with one another.
+ * <p>
+ * The tables only hold nodes weakly: nodes that are no longer reachable
+ * from outside the interner are dropped. Interners are thread safe.
+ */
+public final class Interner {
+
+    private final WeakTable<AlgebraicTr.Node<?>> nodes = new WeakTable<>(
+            n -> 31 * (31 * (31 * n.lvl() + System.identityHashCode(n.left()))
+                    + System.identityHashCode(n.right())) + Objects.hashCode(n.key()),
+            (a, b) -> a.lvl() == b.lvl() && a.left() == b.left() && a.right() == b.right()
+                    && Objects.equals(a.key(), b.key()));
+
+    private final WeakTable<AlgebraicLst.NonEmpty<?>> cells = new WeakTable<>(
+            c -> 31 * System.identityHashCode(c.rest()) + Objects.hashCode(c.head()),
+            (a, b) -> a.rest() == b.rest() && Objects.equals(a.head(), b.head()));
+
+    /** O(n) - returns a set equal to {@code s} made of interned nodes. */
+    public <A> VTreeSet<A> intern(VTreeSet<A> s) {
+        var items = new ArrayList<A>(s.size());
+        s.forEach(items::add);
+        var canonical = BalancedBst.ofSorted(s.keyOrder(), items).rep;
+        return VTreeSet.ofRoot(s.keyOrder(), intern(canonical), s.size());
+    }
+
+    /** O(n) - returns a map equal to {@code m} made of interned nodes. */
+    public <K, V> VTreeMap<K, V> intern(VTreeMap<K, V> m) {
+        var kvs = new ArrayList<Pair<K, V>>(m.size());
+        m.forEach(kvs::add);
+        var canonical = VTreeMap.ofSorted(m.keyOrder(), kvs).root();
+        return VTreeMap.ofRoot(m.keyOrder(), intern(canonical), m.size());
+    }
+
+    /** O(n) - returns a list equal to {@code xs} made of interned cells. */
+    @SuppressWarnings("unchecked") public <A> VList<A> intern(VList<A> xs) {
+        var items = new ArrayList<A>(xs.length());
+        xs.forEach(items::add);
+        var result = AlgebraicLst.<A>empty();
+        for (var i = items.size() - 1; i >= 0; i--) {
+            var cell = (AlgebraicLst.NonEmpty<A>) AlgebraicLst.cons(items.get(i), result);
+            result = (AlgebraicLst<A>) cells.intern(cell);
+        }
+        return VList.ofCells(result, items.size());
+    }
+
+    /** Returns the number of nodes and cells currently interned. */
+    public int size() {
+        return nodes.size() + cells.size();
+    }
+
+    /**
+     * Test hook: clears and enqueues the weak reference to the interned
+     * {@code nodeOrCell}, just as the GC would once it's unreachable.
+     */
+    void expire(Object nodeOrCell) {
+        switch (nodeOrCell) {
+            case AlgebraicTr.Node<?> n -> nodes.expire(n);
+            case AlgebraicLst.NonEmpty<?> c -> cells.expire(c);
+            default -> throw new IllegalArgumentException("not a node or cell: " + nodeOrCell);
+        }
+    }
+
+    // post-order, so children are interned before their parents (the
+    // recursion depth is the height of the tree, O(log n))
+    @SuppressWarnings("unchecked") private <A> AlgebraicTr<A> intern(AlgebraicTr<A> t) {
+        if (!(t instanceof AlgebraicTr.Node<A>(var lvl, var l, var k, var r))) {
+            return t;
+        }
+        var left = intern(l);
+        var right = intern(r);
+        var node = left == l && right == r
+                ? (AlgebraicTr.Node<A>) t
+                : (AlgebraicTr.Node<A>) AlgebraicTr.node(lvl, left, k, right);
+        return (AlgebraicTr<A>) nodes.intern(node);
+    }
+
+    /**
+     * A concurrent set of weakly held objects, compared by the given
+     * (non-identity) equivalence; entries whose object was collected are
+     * purged on the next operation.
+     */
+    private static final class WeakTable<T> {
+
+        interface Hash<T> {
+            int of(T t);
+        }
+
+        interface Equivalence<T> {
+            boolean test(T a, T b);
+        }
+
+        private final ConcurrentHashMap<Entry<T>, Entry<T>> table = new ConcurrentHashMap<>();
+        private final ReferenceQueue<T> collected = new ReferenceQueue<>();
+        private final Hash<T> hash;
+        private final Equivalence<T> equivalence;
+
+        WeakTable(Hash<T> hash, Equivalence<T> equivalence) {
+            this.hash = hash;
+            this.equivalence = equivalence;
+        }
+
+        /** Returns the interned object equivalent to {@code t} (interning t if there's none). */
+        T intern(T t) {
+            purge();
+            var entry = new Entry<>(t, hash.of(t), this);
+            while (true) {
+                var existing = table.putIfAbsent(entry, entry);
+                if (existing == null) {
+                    return t;
+                }
+                var found = existing.get();
+                if (found != null) {
+                    return found;
+                }
+                // collected since the lookup matched it
+                table.remove(existing, existing);
+            }
+        }
+
+        int size() {
+            purge();
+            return table.size();
+        }
+
+        void expire(T t) {
+            for (var e : table.keySet()) {
+                if (e.get() == t) {
+                    e.enqueue();
+                }
+            }
+        }
+
+        private void purge() {
+            Reference<? extends T> r;
+            while ((r = collected.poll()) != null) {
+                var e = (Entry<?>) r;
+                table.remove(e, e);
+            }
+        }
+
+        private static final class Entry<T> extends WeakReference<T> {
+            private final int hash;
+            private final WeakTable<T> owner;
+
+            Entry(T t, int hash, WeakTable<T> owner) {
+                super(t, owner.collected);
+                this.hash = hash;
+                this.owner = owner;
+            }
+
+            @Override public int hashCode() {
+                return hash;
+            }
+
+            // entries whose object was collected are only equal to themselves
+            @SuppressWarnings("unchecked") @Override public boolean equals(Object o) {
+                if (this == o) {
+                    return true;
+                }
+                if (!(o instanceof Entry<?> other) || hash != other.hash) {
+                    return false;
+                }
+                T a = get();
+                T b = (T) other.get();
+                return a != null && b != null && owner.equivalence.test(a, b);
+            }
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package org.rsrg.immutableadts;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A persistent sorted map made of a large, frozen, array-backed base plus
+ * small persistent {@link VTreeMap} deltas on top of it (in the manner of a
+ * log-structured merge tree).
+ * <p>
+ * Updates only ever touch the (small) delta -- removing a key that is in a
+ * lower layer records a tombstone ({@link Maybe#none()}) -- so they path-copy
+ * O(log m) nodes rather than O(log n). Lookups consult the delta first, then
+ * the base (a binary search over a sorted array); iteration merges the
+ * layers. {@link #compact()} folds the deltas into a new base in O(n + m).
+ * <p>
+ * Between the delta and the base there may be a <em>sealed</em> delta: one
+ * that is being compacted in the background (see {@link CompactingTreeMap})
+ * while new updates keep going to a fresh delta.
+ *
+ * @param <K> the type of keys.
+ * @param <V> the type of values.
+ */
+public final class LayeredTreeMap<K, V> implements Iterable<Pair<K, V>> {
+
+    private final Comparator<K> keyOrder;
+    private final Frozen<K, V> base;
+    private final VTreeMap<K, Maybe<V>> sealed;
+    private final VTreeMap<K, Maybe<V>> delta;
+    private final int size;
+
+    private LayeredTreeMap(Comparator<K> keyOrder, Frozen<K, V> base,
+                           VTreeMap<K, Maybe<V>> sealed, VTreeMap<K, Maybe<V>> delta, int size) {
+        this.keyOrder = keyOrder;
+        this.base = base;
+        this.sealed = sealed;
+        this.delta = delta;
+        this.size = size;
+    }
+
+    public static <A, B> LayeredTreeMap<A, B> empty(Comparator<A> o) {
+        var none = VTreeMap.<A, Maybe<B>>empty(o);
+        return new LayeredTreeMap<>(o, new Frozen<>(o, new Object[0], new Object[0]), none, none, 0);
+    }
+
+    public static <A extends Comparable<A>, B> LayeredTreeMap<A, B> empty() {
+        return empty(Comparable::compareTo);
+    }
+
+    /** O(n) - returns a map with the bindings of {@code m} as its base. */
+    public static <A, B> LayeredTreeMap<A, B> of(VTreeMap<A, B> m) {
+        var keys = new Object[m.size()];
+        var values = new Object[m.size()];
+        var i = 0;
+        for (var kv : m) {
+            keys[i] = kv.first();
+            values[i++] = kv.second();
+        }
+        var none = VTreeMap.<A, Maybe<B>>empty(m.keyOrder());
+        return new LayeredTreeMap<>(m.keyOrder(), new Frozen<>(m.keyOrder(), keys, values), none, none, m.size());
+    }
+
+    /** O(1) - returns the number of key value pairs in this map. */
+    public int size() {
+        return size;
+    }
+
+    /** O(1) - returns the number of bindings in the frozen base. */
+    public int baseSize() {
+        return base.keys.length;
+    }
+
+    /**
+     * O(1) - returns the number of entries (bindings and tombstones) in the
+     * deltas above the base.
+     */
+    public int deltaSize() {
+        return sealed.size() + delta.size();
+    }
+
+    /** O(log m + log n) - looks up the value bound to {@code key} (if any). */
+    public Maybe<V> lookup(K key) {
+        var inDelta = delta.lookup(key);
+        if (inDelta.nonEmpty()) {
+            return inDelta.get();
+        }
+        var inSealed = sealed.lookup(key);
+        if (inSealed.nonEmpty()) {
+            return inSealed.get();
+        }
+        return base.lookup(key);
+    }
+
+    /** O(log m + log n) - returns true only if {@code key} is in this map. */
+    public boolean member(K key) {
+        return lookup(key).nonEmpty();
+    }
+
+    /** O(log m + log n) - (re)binds {@code key} to {@code value}. */
+    public LayeredTreeMap<K, V> insert(K key, V value) {
+        Objects.requireNonNull(value, "value is null"); // none() marks tombstones
+        var updatedSize = member(key) ? size : size + 1;
+        return new LayeredTreeMap<>(keyOrder, base, sealed, delta.insert(key, Maybe.of(value)), updatedSize);
+    }
+
+    /** O(log m + log n) - removes the binding for {@code key} (if any). */
+    public LayeredTreeMap<K, V> remove(K key) {
+        if (!member(key)) {
+            return this;
+        }
+        // a tombstone is only needed to hide a binding in a lower layer
+        var hidesLower = sealed.member(key) || base.lookup(key).nonEmpty();
+        var updatedDelta = hidesLower ? delta.insert(key, Maybe.none()) : delta.remove(key);
+        return new LayeredTreeMap<>(keyOrder, base, sealed, updatedDelta, size - 1);
+    }
+
+    /** O(n + m) - folds all deltas into a new base. */
+    public LayeredTreeMap<K, V> compact() {
+        if (deltaSize() == 0) {
+            return this;
+        }
+        var newBase = base.merge(sealed).merge(delta);
+        var none = VTreeMap.<K, Maybe<V>>empty(keyOrder);
+        return new LayeredTreeMap<>(keyOrder, newBase, none, none, size);
+    }
+
+    // background compaction (see CompactingTreeMap):
+
+    boolean hasSealed() {
+        return sealed.size() > 0;
+    }
+
+    /** O(1) - moves the delta into the (empty) sealed layer. */
+    LayeredTreeMap<K, V> seal() {
+        if (hasSealed()) {
+            throw new IllegalStateException("already sealed");
+        }
+        return new LayeredTreeMap<>(keyOrder, base, delta, VTreeMap.empty(keyOrder), size);
+    }
+
+    /** O(n + m) - returns the base and sealed layer folded together. */
+    Frozen<K, V> compactSealed() {
+        return base.merge(sealed);
+    }
+
+    /**
+     * O(1) - replaces the base and sealed layer with {@code compacted} (which
+     * must have been computed by {@link #compactSealed} on a map sharing
+     * this one's base and sealed layer).
+     */
+    LayeredTreeMap<K, V> withCompacted(Frozen<K, V> compacted) {
+        return new LayeredTreeMap<>(keyOrder, compacted, VTreeMap.empty(keyOrder), delta, size);
+    }
+
+    /** Returns true if {@code o} has the same base and sealed layer. */
+    boolean sameLowerLayers(LayeredTreeMap<K, V> o) {
+        return base == o.base && sealed == o.sealed;
+    }
+
+    // iteration:
+
+    /** Iterates over the bindings of this map in ascending key order. */
+    @Override public Iterator<Pair<K, V>> iterator() {
+        var merged = new MergeIter<>(keyOrder, delta.iterator(),
+                new MergeIter<>(keyOrder, sealed.iterator(), base.entries()));
+        return new Iterator<>() {
+            private Pair<K, V> next = advance();
+
+            private Pair<K, V> advance() {
+                while (merged.hasNext()) {
+                    var e = merged.next();
+                    if (e.second() instanceof Maybe.Some<V>(var v)) {
+                        return Pair.of(e.first(), v);
+                    }
+                }
+                return null;
+            }
+
+            @Override public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override public Pair<K, V> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                var result = next;
+                next = advance();
+                return result;
+            }
+        };
+    }
+
+    @Override public String toString() {
+        var sb = new StringBuilder("[");
+        for (var kv : this) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(kv);
+        }
+        return sb.append("]").toString();
+    }
+
+    /**
+     * Merges two ascending streams of entries; on equal keys the entry of
+     * {@code upper} wins (and the one from {@code lower} is dropped).
+     */
+    private static final class MergeIter<K, V> implements Iterator<Pair<K, Maybe<V>>> {
+        private final Comparator<K> o;
+        private final Iterator<Pair<K, Maybe<V>>> upper, lower;
+        private Pair<K, Maybe<V>> u, l;
+
+        MergeIter(Comparator<K> o, Iterator<Pair<K, Maybe<V>>> upper, Iterator<Pair<K, Maybe<V>>> lower) {
+            this.o = o;
+            this.upper = upper;
+            this.lower = lower;
+            this.u = upper.hasNext() ? upper.next() : null;
+            this.l = lower.hasNext() ? lower.next() : null;
+        }
+
+        @Override public boolean hasNext() {
+            return u != null || l != null;
+        }
+
+        @Override public Pair<K, Maybe<V>> next() {
+            if (u == null && l == null) {
+                throw new NoSuchElementException();
+            }
+            var c = u == null ? 1 : l == null ? -1 : o.compare(u.first(), l.first());
+            Pair<K, Maybe<V>> result;
+            if (c <= 0) {
+                result = u;
+                u = upper.hasNext() ? upper.next() : null;
+                if (c == 0) {
+                    l = lower.hasNext() ? lower.next() : null;
+                }
+            } else {
+                result = l;
+                l = lower.hasNext() ? lower.next() : null;
+            }
+            return result;
+        }
+    }
+
+    /** An immutable, sorted array of bindings. */
+    static final class Frozen<K, V> {
+        private final Comparator<K> o;
+        private final Object[] keys;
+        private final Object[] values;
+
+        Frozen(Comparator<K> o, Object[] keys, Object[] values) {
+            this.o = o;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @SuppressWarnings("unchecked") Maybe<V> lookup(K key) {
+            int lo = 0, hi = keys.length - 1;
+            while (lo <= hi) {
+                var mid = (lo + hi) >>> 1;
+                var c = o.compare((K) keys[mid], key);
+                if (c < 0) {
+                    lo = mid + 1;
+                } else if (c > 0) {
+                    hi = mid - 1;
+                } else {
+                    return Maybe.of((V) values[mid]);
+                }
+            }
+            return Maybe.none();
+        }
+
+        @SuppressWarnings("unchecked") Iterator<Pair<K, Maybe<V>>> entries() {
+            return new Iterator<>() {
+                private int i = 0;
+
+                @Override public boolean hasNext() {
+                    return i < keys.length;
+                }
+
+                @Override public Pair<K, Maybe<V>> next() {
+                    if (i >= keys.length) {
+                        throw new NoSuchElementException();
+                    }
+                    var result = Pair.of((K) keys[i], Maybe.of((V) values[i]));
+                    i++;
+                    return result;
+                }
+            };
+        }
+
+        /** O(n + m) - applies {@code layer} (bindings and tombstones). */
+        Frozen<K, V> merge(VTreeMap<K, Maybe<V>> layer) {
+            if (layer.size() == 0) {
+                return this;
+            }
+            var newKeys = new ArrayList<>(keys.length + layer.size());
+            var newValues = new ArrayList<>(keys.length + layer.size());
+            var merged = new MergeIter<>(o, layer.iterator(), entries());
+            while (merged.hasNext()) {
+                var e = merged.next();
+                if (e.second() instanceof Maybe.Some<V>(var v)) {
+                    newKeys.add(e.first());
+                    newValues.add(v);
+                }
+            }
+            return new Frozen<>(o, newKeys.toArray(), newValues.toArray());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.rsrg.immutableadts;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the results of {@link VTreeMap#lookup} on one version
+ * of a map. Worth it when lookups are skewed towards a few hot keys and the
+ * key order is expensive: a hit costs a hash and an equality check instead of
+ * O(log n) comparisons.
+ * <p>
+ * As the map can't change, cached results (including misses) never go stale
+ * and need no invalidation; a new version of the map simply gets a new
+ * cache. The cache is keyed by {@link Object#hashCode}/{@link Object#equals},
+ * which must agree with the map's key order (keys that compare equal must be
+ * equal).
+ * <p>
+ * Caches are thread safe. Entries are spread over independently locked
+ * stripes, each of which evicts its least recently used entry when full
+ * (so eviction is only approximately LRU across the whole cache).
+ *
+ * @param <K> the type of keys.
+ * @param <V> the type of values.
+ */
+public final class LookupCache<K, V> {
+
+    private static final int MaxStripes = 16;
+
+    private final VTreeMap<K, V> map;
+    private final Stripe<K, V>[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @SuppressWarnings("unchecked") private LookupCache(VTreeMap<K, V> map, int capacity) {
+        this.map = map;
+        var n = Integer.highestOneBit(Math.min(MaxStripes, capacity));
+        this.stripes = new Stripe[n];
+        for (var i = 0; i < n; i++) {
+            stripes[i] = new Stripe<>((capacity + n - 1) / n);
+        }
+    }
+
+    /**
+     * Returns an empty cache for {@code m} holding at most about
+     * {@code capacity} results.
+     *
+     * @throws IllegalArgumentException if {@code capacity} isn't positive.
+     */
+    public static <A, B> LookupCache<A, B> of(VTreeMap<A, B> m, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        return new LookupCache<>(m, capacity);
+    }
+
+    /** O(1) - returns the map this cache is for. */
+    public VTreeMap<K, V> map() {
+        return map;
+    }
+
+    /**
+     * O(1) on a hit, O(log n) otherwise - returns {@code map().lookup(key)}.
+     */
+    public Maybe<V> lookup(K key) {
+        var stripe = stripes[stripeOf(key)];
+        Maybe<V> result;
+        synchronized (stripe) {
+            result = stripe.get(key);
+        }
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        // search outside the lock (racing misses on a key just agree)
+        result = map.lookup(key);
+        synchronized (stripe) {
+            stripe.put(key, result);
+        }
+        return result;
+    }
+
+    /** Returns true only if {@code key} is in {@link #map()}. */
+    public boolean member(K key) {
+        return lookup(key).nonEmpty();
+    }
+
+    /** Returns the number of lookups answered from the cache. */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /** Returns the number of lookups that had to search the map. */
+    public long misses() {
+        return misses.sum();
+    }
+
+    private int stripeOf(K key) {
+        var h = Objects.hashCode(key);
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    // an access ordered map that drops its eldest entry when over capacity
+    private static final class Stripe<K, V> extends LinkedHashMap<K, Maybe<V>> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override protected boolean removeEldestEntry(Map.Entry<K, Maybe<V>> eldest) {
+            return size() > capacity;
+        }
+    }
+}
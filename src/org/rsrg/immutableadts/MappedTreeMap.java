@@ -0,0 +1,381 @@
+package org.rsrg.immutableadts;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only sorted map living in a memory-mapped file.
+ * <p>
+ * The file holds the bindings in ascending key order, grouped into blocks of
+ * {@link #BlockSize} entries, followed by a sparse index with the offset of
+ * each block:
+ * <pre>
+ *   header  int magic (0x564D4150, "VMAP"), int version (1), long count,
+ *           long index offset, int block size, int (reserved)
+ *   data    count entries: key, int value length, value
+ *   index   one long offset per block
+ * </pre>
+ * Keys and values are encoded by {@link ElementCodec}s (big endian, as by
+ * {@link java.io.DataOutput}). Opening a file only maps it and checks the
+ * header, so startup doesn't depend on the size of the map. A lookup binary
+ * searches the index (decoding the first key of O(log(n/B)) blocks) and then
+ * scans a single block; values are skipped over, never decoded, unless their
+ * key matches. Nothing is copied onto the heap but the decoded elements.
+ * <p>
+ * The map may be read from any number of threads. Once {@link #close}d, the
+ * mapping is released and further reads fail with an
+ * {@link IllegalStateException}.
+ *
+ * @param <K> the type of keys.
+ * @param <V> the type of values.
+ */
+public final class MappedTreeMap<K, V> implements Iterable<Pair<K, V>>, AutoCloseable {
+
+    static final int Magic = 0x564D4150;
+    static final int Version = 1;
+    static final int BlockSize = 64;
+    private static final int HeaderSize = 32;
+
+    private static final ValueLayout.OfLong BeLong = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final Comparator<K> keyOrder;
+    private final ElementCodec<K> keys;
+    private final ElementCodec<V> values;
+    private final int size;
+    private final long indexOffset;
+    private final int blockSize;
+    private final int blocks;
+
+    private MappedTreeMap(Arena arena, MemorySegment segment, Comparator<K> keyOrder,
+                          ElementCodec<K> keys, ElementCodec<V> values,
+                          int size, long indexOffset, int blockSize) {
+        this.arena = arena;
+        this.segment = segment;
+        this.keyOrder = keyOrder;
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+        this.indexOffset = indexOffset;
+        this.blockSize = blockSize;
+        this.blocks = (int) ((size + (long) blockSize - 1) / blockSize);
+    }
+
+    // writing:
+
+    /** O(n) - writes {@code m} to a (new or replaced) file at {@code path}. */
+    public static <K, V> void write(Path path, VTreeMap<K, V> m,
+                                    ElementCodec<K> keys, ElementCodec<V> values) throws IOException {
+        write(path, m.keyOrder(), m, keys, values);
+    }
+
+    /**
+     * O(n) - writes the bindings {@code kvs} to a (new or replaced) file at
+     * {@code path}. The bindings are streamed (they needn't fit in memory),
+     * but must come in strictly increasing key order w.r.t. {@code o}.
+     * <p>
+     * The map is written to a temporary file next to {@code path}, which is
+     * then moved over it; if writing fails, an existing file at
+     * {@code path} is left untouched.
+     *
+     * @throws IllegalArgumentException if the keys are out of order.
+     */
+    public static <K, V> void write(Path path, Comparator<K> o, Iterable<Pair<K, V>> kvs,
+                                    ElementCodec<K> keys, ElementCodec<V> values) throws IOException {
+        var dir = path.toAbsolutePath().getParent();
+        var tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            writeTo(tmp, o, kvs, keys, values);
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    private static <K, V> void writeTo(Path path, Comparator<K> o, Iterable<Pair<K, V>> kvs,
+                                       ElementCodec<K> keys, ElementCodec<V> values) throws IOException {
+        var blockOffsets = new long[16];
+        var count = 0L;
+        try (var ch = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             var counting = new CountingOutputStream(
+                     new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16));
+             var out = new DataOutputStream(counting)) {
+            out.write(new byte[HeaderSize]); // filled in below
+            var valueBytes = new ByteArrayOutputStream();
+            var valueOut = new DataOutputStream(valueBytes);
+            K prev = null;
+            for (var kv : kvs) {
+                if (count > 0 && o.compare(prev, kv.first()) >= 0) {
+                    throw new IllegalArgumentException("keys not strictly increasing at index " + count);
+                }
+                if (count % BlockSize == 0) {
+                    var block = (int) (count / BlockSize);
+                    if (block == blockOffsets.length) {
+                        blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+                    }
+                    blockOffsets[block] = counting.written;
+                }
+                keys.write(out, kv.first());
+                valueBytes.reset();
+                values.write(valueOut, kv.second());
+                valueOut.flush();
+                out.writeInt(valueBytes.size());
+                valueBytes.writeTo(out);
+                prev = kv.first();
+                count++;
+            }
+            if (count > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("too many bindings: " + count);
+            }
+            var indexOffset = counting.written;
+            var blocks = (int) ((count + BlockSize - 1) / BlockSize);
+            for (var i = 0; i < blocks; i++) {
+                out.writeLong(blockOffsets[i]);
+            }
+            out.flush();
+            writeHeader(ch, count, indexOffset);
+            ch.force(false);
+        }
+    }
+
+    // patches the header in place (everything else has been flushed)
+    private static void writeHeader(FileChannel ch, long count, long indexOffset) throws IOException {
+        var header = ByteBuffer.allocate(HeaderSize); // big endian
+        header.putInt(Magic).putInt(Version).putLong(count).putLong(indexOffset)
+                .putInt(BlockSize).putInt(0).flip();
+        while (header.hasRemaining()) {
+            ch.write(header, header.position());
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long written = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override public void write(int b) throws IOException {
+            out.write(b);
+            written++;
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            written += len;
+        }
+    }
+
+    // opening:
+
+    /**
+     * O(1) - maps the file at {@code path} (written by {@link #write});
+     * {@code o} must be the key order it was written in.
+     *
+     * @throws IOException if the file is not such a map.
+     */
+    public static <K, V> MappedTreeMap<K, V> open(Path path, Comparator<K> o,
+                                                  ElementCodec<K> keys, ElementCodec<V> values) throws IOException {
+        var arena = Arena.ofShared();
+        try (var ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            var segment = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size(), arena);
+            var in = new SegmentInput(segment, 0, segment.byteSize());
+            if (in.readInt() != Magic) {
+                throw new IOException(path + " is not a mapped tree map (bad magic number)");
+            }
+            var version = in.readInt();
+            if (version != Version) {
+                throw new IOException("unsupported format version " + version);
+            }
+            var count = in.readLong();
+            var indexOffset = in.readLong();
+            var blockSize = in.readInt();
+            if (count < 0 || count > Integer.MAX_VALUE || blockSize <= 0
+                    || indexOffset < HeaderSize
+                    || indexOffset + 8 * ((count + blockSize - 1) / blockSize) > segment.byteSize()) {
+                throw new IOException(path + " has a corrupt header");
+            }
+            return new MappedTreeMap<>(arena, segment, o, keys, values, (int) count, indexOffset, blockSize);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /** Releases the mapping. */
+    @Override public void close() {
+        arena.close();
+    }
+
+    // queries:
+
+    /** O(1) - returns the number of key value pairs in this map. */
+    public int size() {
+        return size;
+    }
+
+    /** O(log n) - looks up the value bound to {@code key} (if any). */
+    public Maybe<V> lookup(K key) {
+        try {
+            var in = seekTo(key);
+            if (in.position() < indexOffset) {
+                var k = keys.read(in);
+                if (keyOrder.compare(k, key) == 0) {
+                    in.readInt();
+                    return Maybe.of(values.read(in));
+                }
+            }
+            return Maybe.none();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** O(log n) - returns true only if {@code key} is in this map. */
+    public boolean member(K key) {
+        try {
+            var in = seekTo(key);
+            return in.position() < indexOffset && keyOrder.compare(keys.read(in), key) == 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Iterates over all bindings of this map in ascending key order. */
+    @Override public Iterator<Pair<K, V>> iterator() {
+        return new EntryIter(new SegmentInput(segment, HeaderSize, indexOffset), null);
+    }
+
+    /**
+     * O(log n) to start - iterates (in ascending order) over the bindings
+     * whose keys lie in {@code [from, to)}.
+     */
+    public Iterable<Pair<K, V>> range(K from, K to) {
+        return () -> {
+            try {
+                return new EntryIter(seekTo(from), to);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /** O(n) - copies this map onto the heap. */
+    public VTreeMap<K, V> toVTreeMap() {
+        var kvs = new ArrayList<Pair<K, V>>(size);
+        for (var kv : this) {
+            kvs.add(kv);
+        }
+        return VTreeMap.ofSorted(keyOrder, kvs);
+    }
+
+    /**
+     * Returns an input positioned at the first entry whose key is not less
+     * than {@code key} (or at the index, if there is none).
+     */
+    private SegmentInput seekTo(K key) throws IOException {
+        var in = new SegmentInput(segment, HeaderSize, indexOffset);
+        if (blocks == 0) {
+            return in;
+        }
+        // the last block whose first key is <= key
+        int lo = 0, hi = blocks - 1, block = 0;
+        while (lo <= hi) {
+            var mid = (lo + hi) >>> 1;
+            in.seek(blockOffset(mid));
+            if (keyOrder.compare(keys.read(in), key) <= 0) {
+                block = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        in.seek(blockOffset(block));
+        while (in.position() < indexOffset) {
+            var start = in.position();
+            if (keyOrder.compare(keys.read(in), key) >= 0) {
+                in.seek(start);
+                break;
+            }
+            skipValue(in);
+        }
+        return in;
+    }
+
+    private long blockOffset(int block) {
+        return segment.get(BeLong, indexOffset + 8L * block);
+    }
+
+    private static void skipValue(SegmentInput in) throws IOException {
+        var len = in.readInt();
+        if (len < 0) {
+            throw new IOException("negative value length at " + in.position());
+        }
+        in.seek(in.position() + len);
+    }
+
+    private final class EntryIter implements Iterator<Pair<K, V>> {
+        private final SegmentInput in;
+        private final K to; // exclusive upper bound; null means none
+        private Pair<K, V> next;
+
+        EntryIter(SegmentInput in, K to) {
+            this.in = in;
+            this.to = to;
+            this.next = advance();
+        }
+
+        private Pair<K, V> advance() {
+            if (in.position() >= indexOffset) {
+                return null;
+            }
+            try {
+                var k = keys.read(in);
+                if (to != null && keyOrder.compare(k, to) >= 0) {
+                    in.seek(indexOffset);
+                    return null;
+                }
+                in.readInt();
+                return Pair.of(k, values.read(in));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override public Pair<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            var result = next;
+            next = advance();
+            return result;
+        }
+    }
+}
@@ -2,10 +2,19 @@ package org.rsrg.immutableadts;
 
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
-/** A maybe/option type modeled after the one found in haskell. */
+/**
+ * A maybe/option type modeled after the one found in haskell.
+ * <p>
+ * Maybes are <em>value-based</em>: instances are immutable, compared with
+ * {@code equals} only, and may be freely substituted when equal. Don't
+ * synchronize on them or rely on their identity (e.g., {@code ==} or
+ * identity hash codes).
+ */
 public sealed interface Maybe<A> {
 
     // factory methods
@@ -17,34 +26,41 @@ public sealed interface Maybe<A> {
         return (None<T>) None.Instance;
     }
 
-    default A getOrElse(A other) {
-        return isEmpty() ? other : get();
-    }
+    A get();
 
-    default A getOrElse(Supplier<A> supplier) {
-        return isEmpty() ? supplier.get() : get();
-    }
+    A getOrElse(A other);
 
-    A get();
+    A getOrElse(Supplier<A> supplier);
 
-    default boolean isEmpty() {
-        return this instanceof Maybe.None<A>;
+    /** Same as {@link #getOrElse(Supplier)}. */
+    default A orElseGet(Supplier<A> supplier) {
+        return getOrElse(supplier);
     }
 
+    boolean isEmpty();
+
     default boolean nonEmpty() {
-        return this instanceof Maybe.Some<A>;
+        return !isEmpty();
     }
 
     default boolean isDefined() {
-        return nonEmpty();
+        return !isEmpty();
     }
 
-    default boolean contains(A item) {
-        return switch (this) {
-            case Some(var x) -> x.equals(item);
-            case None<A> _ -> false;
-        };
-    }
+    boolean contains(A item);
+
+    // remember: fmap is functorMap (not flatMap -- which would return an obj)
+    // really: since we're in java, would be better to probably just rename
+    // this 'map' as we're not/can't model functors realistically here`
+    <B> Maybe<B> map(Function<A, B> f);
+
+    <B> Maybe<B> flatMap(Function<A, Maybe<B>> f);
+
+    /** Returns {@code this} if it holds a value satisfying {@code p}. */
+    Maybe<A> filter(Predicate<A> p);
+
+    /** Applies {@code action} to the value, if there is one. */
+    void ifPresent(Consumer<A> action);
 
     final class None<A> implements Maybe<A> {
         public static final None<?> Instance = new None<>();
@@ -55,6 +71,41 @@ public sealed interface Maybe<A> {
             throw new NoSuchElementException("option is empty");
         }
 
+        @Override public A getOrElse(A other) {
+            return other;
+        }
+
+        @Override public A getOrElse(Supplier<A> supplier) {
+            return supplier.get();
+        }
+
+        @Override public boolean isEmpty() {
+            return true;
+        }
+
+        @Override public boolean contains(A item) {
+            return false;
+        }
+
+        @Override public <B> Maybe<B> map(Function<A, B> f) {
+            Objects.requireNonNull(f, "fn is null");
+            return none();
+        }
+
+        @Override public <B> Maybe<B> flatMap(Function<A, Maybe<B>> f) {
+            Objects.requireNonNull(f, "fn is null");
+            return none();
+        }
+
+        @Override public Maybe<A> filter(Predicate<A> p) {
+            Objects.requireNonNull(p, "predicate is null");
+            return this;
+        }
+
+        @Override public void ifPresent(Consumer<A> action) {
+            Objects.requireNonNull(action, "action is null");
+        }
+
         @Override public int hashCode() {
             return 1;
         }
@@ -65,6 +116,42 @@ public sealed interface Maybe<A> {
             return value;
         }
 
+        @Override public A getOrElse(A other) {
+            return value;
+        }
+
+        @Override public A getOrElse(Supplier<A> supplier) {
+            return value;
+        }
+
+        @Override public boolean isEmpty() {
+            return false;
+        }
+
+        @Override public boolean contains(A item) {
+            return value.equals(item);
+        }
+
+        @Override public <B> Maybe<B> map(Function<A, B> f) {
+            Objects.requireNonNull(f, "fn is null");
+            return new Some<>(f.apply(value));
+        }
+
+        @Override public <B> Maybe<B> flatMap(Function<A, Maybe<B>> f) {
+            Objects.requireNonNull(f, "fn is null");
+            return f.apply(value);
+        }
+
+        @Override public Maybe<A> filter(Predicate<A> p) {
+            Objects.requireNonNull(p, "predicate is null");
+            return p.test(value) ? this : none();
+        }
+
+        @Override public void ifPresent(Consumer<A> action) {
+            Objects.requireNonNull(action, "action is null");
+            action.accept(value);
+        }
+
         @Override public boolean equals(Object o) {
             return switch (o) {
                 case Maybe.Some(var ov) -> this.value.equals(ov);
@@ -76,16 +163,4 @@ public sealed interface Maybe<A> {
             return Objects.hashCode(value);
         }
     }
-
-    // remember: fmap is functorMap (not flatMap -- which would return an obj)
-    // really: since we're in java, would be better to probably just rename
-    // this 'map' as we're not/can't model functors realistically here`
-    default <B> Maybe<B> map(Function<A, B> f) {
-        Objects.requireNonNull(f, "fn is null");
-
-        return switch (this) {
-            case Maybe.None<?> _ -> none();
-            case Some(var x) -> new Some<>(f.apply(x));
-        };
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package org.rsrg.immutableadts;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in counters for the hot paths of the trees, lists and chains in this
+ * package: comparator calls, tree nodes allocated, rebalancing steps, list
+ * appends and chain traversal steps.
+ * <p>
+ * Instrumentation is off unless the JVM is started with
+ * {@code -Dorg.rsrg.immutableadts.metrics=true}. Every probe is guarded by
+ * the constant {@link #Enabled}, so when it's off the JIT drops the probes
+ * altogether (and comparators aren't wrapped). When it's on, counts are
+ * summed into process wide totals ({@link #get}, {@link #snapshot}) and
+ * forwarded to the {@link Listener} (if any), e.g. to feed a metrics
+ * registry.
+ */
+public final class Metrics {
+
+    /** Whether the probes are active (fixed at class initialization). */
+    public static final boolean Enabled = Boolean.getBoolean("org.rsrg.immutableadts.metrics");
+
+    public enum Counter {
+        /** Calls to the key order of a tree. */
+        Comparisons,
+        /** Tree nodes allocated (by updates, bulk operations and builds). */
+        NodeAllocations,
+        /** Skews that rotated a node. */
+        Skews,
+        /** Splits that rotated a node. */
+        Splits,
+        /** Post-deletion adjustments that had to rebalance a node. */
+        Adjusts,
+        /** Calls to {@link VList#append}. */
+        ListAppends,
+        /** Cells copied by {@link VList#append}. */
+        ListAppendCopies,
+        /** Chain nodes visited by chain iterators. */
+        ChainSteps
+    }
+
+    /** Receives every count as it's recorded (possibly from many threads). */
+    @FunctionalInterface public interface Listener {
+        void record(Counter counter, long amount);
+    }
+
+    private static final LongAdder[] Totals = new LongAdder[Counter.values().length];
+    private static volatile Listener listener = null;
+
+    static {
+        for (var i = 0; i < Totals.length; i++) {
+            Totals[i] = new LongAdder();
+        }
+    }
+
+    private Metrics() {}
+
+    /** Installs {@code l} as the listener ({@code null} removes it). */
+    public static void setListener(Listener l) {
+        listener = l;
+    }
+
+    /** Returns the total recorded for {@code c} since the last reset. */
+    public static long get(Counter c) {
+        return Totals[c.ordinal()].sum();
+    }
+
+    /** Returns the totals of all counters. */
+    public static Map<Counter, Long> snapshot() {
+        var result = new EnumMap<Counter, Long>(Counter.class);
+        for (var c : Counter.values()) {
+            result.put(c, get(c));
+        }
+        return result;
+    }
+
+    /** Zeroes all totals (counts recorded concurrently may be lost). */
+    public static void reset() {
+        for (var t : Totals) {
+            t.reset();
+        }
+    }
+
+    // probes: callers guard them with `if (Metrics.Enabled)`
+
+    static void record(Counter c, long amount) {
+        Totals[c.ordinal()].add(amount);
+        var l = listener;
+        if (l != null) {
+            l.record(c, amount);
+        }
+    }
+
+    /** Returns {@code o}, counting its calls if metrics are enabled. */
+    static <T> Comparator<T> counting(Comparator<T> o) {
+        if (!Enabled || o instanceof CountingComparator<T>) {
+            return o;
+        }
+        return new CountingComparator<>(o);
+    }
+
+    private record CountingComparator<T>(Comparator<T> o) implements Comparator<T> {
+        @Override public int compare(T x, T y) {
+            record(Counter.Comparisons, 1);
+            return o.compare(x, y);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package org.rsrg.immutableadts;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+
+/**
+ * A persistent map from {@code long} keys to {@code long} values, kept as an
+ * AA tree (the same balancing scheme as {@link BalancedBst}) whose nodes are
+ * fixed-width slots in off-heap memory rather than Java objects.
+ * <p>
+ * Each map is an immutable version: {@link #insert} and {@link #remove}
+ * path-copy O(log n) nodes into new slots and return a new version, sharing
+ * all other nodes with the old one. Nodes live in a {@link Store}; the
+ * garbage collector sees one small object per version (and per 1MB chunk of
+ * nodes), not one per entry, so large maps don't add to GC tracing work.
+ * <p>
+ * Memory is reclaimed per store, never per node: closing a store frees the
+ * nodes of every version in it at once (versions must not be used after
+ * that). To drop the garbage left behind by many updates, {@link #copyTo}
+ * the versions still needed into a fresh store and close the old one.
+ */
+public final class OffHeapLongMap {
+
+    private static final int Nil = -1;
+
+    private final Store store;
+    private final int root;
+    private final int size;
+
+    private OffHeapLongMap(Store store, int root, int size) {
+        this.store = store;
+        this.root = root;
+        this.size = size;
+    }
+
+    /** O(1) - returns an empty map whose nodes will be kept in {@code store}. */
+    public static OffHeapLongMap empty(Store store) {
+        return new OffHeapLongMap(store, Nil, 0);
+    }
+
+    /** O(1) - returns the number of key value pairs in this map. */
+    public int size() {
+        return size;
+    }
+
+    /** O(log n) - returns true only if {@code key} is in this map. */
+    public boolean member(long key) {
+        return find(key) != Nil;
+    }
+
+    /** O(log n) - looks up the value bound to {@code key} (if any). */
+    public Maybe<Long> lookup(long key) {
+        var n = find(key);
+        return n == Nil ? Maybe.none() : Maybe.of(store.value(n));
+    }
+
+    /**
+     * O(log n) - returns the value bound to {@code key}, or {@code dflt} if
+     * there is none (without boxing, unlike {@link #lookup}).
+     */
+    public long getOrDefault(long key, long dflt) {
+        var n = find(key);
+        return n == Nil ? dflt : store.value(n);
+    }
+
+    private int find(long key) {
+        var n = root;
+        while (n != Nil) {
+            var k = store.key(n);
+            if (key == k) {
+                return n;
+            }
+            n = key < k ? store.left(n) : store.right(n);
+        }
+        return Nil;
+    }
+
+    /** O(log n) - binds {@code key} to {@code value} (replacing any binding). */
+    public OffHeapLongMap insert(long key, long value) {
+        var op = new Update(store);
+        var newRoot = op.insert(root, key, value);
+        return new OffHeapLongMap(store, newRoot, op.found ? size : size + 1);
+    }
+
+    /** O(log n) - removes the binding for {@code key} (if there is one). */
+    public OffHeapLongMap remove(long key) {
+        if (!member(key)) {
+            return this;
+        }
+        return new OffHeapLongMap(store, new Update(store).delete(root, key), size - 1);
+    }
+
+    /** Receives the bindings of a map, see {@link #forEach}. */
+    @FunctionalInterface public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    /** O(n) - passes the bindings of this map to {@code f} in ascending key order. */
+    public void forEach(EntryConsumer f) {
+        var stack = new int[64];
+        var depth = 0;
+        var n = root;
+        while (n != Nil || depth > 0) {
+            if (n != Nil) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = n;
+                n = store.left(n);
+            } else {
+                n = stack[--depth];
+                f.accept(store.key(n), store.value(n));
+                n = store.right(n);
+            }
+        }
+    }
+
+    /**
+     * O(n) - copies this map into {@code target} (as a freshly balanced tree
+     * sharing no nodes with this one).
+     */
+    public OffHeapLongMap copyTo(Store target) {
+        var keys = new long[size];
+        var values = new long[size];
+        var i = new int[1];
+        forEach((k, v) -> {
+            keys[i[0]] = k;
+            values[i[0]++] = v;
+        });
+        return new OffHeapLongMap(target, build(target, keys, values, 0, size), size);
+    }
+
+    // a perfectly balanced tree over [lo, hi): with the smaller half on the
+    // left (where AA trees want the lower levels), giving a subtree of n
+    // nodes level floor(log2(n + 1)) satisfies the AA invariants
+    private static int build(Store s, long[] keys, long[] values, int lo, int hi) {
+        if (lo >= hi) {
+            return Nil;
+        }
+        var mid = lo + (hi - lo - 1) / 2;
+        var level = 31 - Integer.numberOfLeadingZeros(hi - lo + 1);
+        return s.node(level, build(s, keys, values, lo, mid), keys[mid], values[mid],
+                build(s, keys, values, mid + 1, hi));
+    }
+
+    /** O(n) - checks the AA invariants (AA1-AA4, see BalancedBstPropTests). */
+    boolean isBalanced() {
+        return isBalanced(root);
+    }
+
+    private boolean isBalanced(int t) {
+        if (t == Nil) {
+            return true;
+        }
+        int l = store.left(t), r = store.right(t), lv = store.level(t);
+        var lvl = (l == Nil ? 0 : store.level(l));
+        var lvr = (r == Nil ? 0 : store.level(r));
+        var rr = r == Nil ? Nil : store.right(r);
+        var lvrr = (rr == Nil ? 0 : store.level(rr));
+        return lvl == lv - 1
+                && (lvr == lv || lvr == lv - 1)
+                && lvrr < lv
+                && (lv == 1 || (l != Nil && r != Nil))
+                && isBalanced(l) && isBalanced(r);
+    }
+
+    @Override public String toString() {
+        var sb = new StringBuilder("[");
+        forEach((k, v) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append("]").toString();
+    }
+
+    /**
+     * The path-copying AA tree algorithms. Nodes allocated by this update
+     * (at or above {@code mark}) aren't reachable from any published version
+     * yet, so they are modified in place instead of being copied again.
+     */
+    private static final class Update {
+        private final Store s;
+        private final int mark;
+        boolean found = false;
+
+        Update(Store s) {
+            this.s = s;
+            this.mark = s.allocated();
+        }
+
+        private int lvl(int t) {
+            return t == Nil ? 0 : s.level(t);
+        }
+
+        private int with(int t, int level, int left, long key, long value, int right) {
+            if (t >= mark) {
+                s.set(t, level, left, key, value, right);
+                return t;
+            }
+            return s.node(level, left, key, value, right);
+        }
+
+        private int withLeft(int t, int left) {
+            return with(t, s.level(t), left, s.key(t), s.value(t), s.right(t));
+        }
+
+        private int withRight(int t, int right) {
+            return with(t, s.level(t), s.left(t), s.key(t), s.value(t), right);
+        }
+
+        private int withLevel(int t, int level) {
+            return with(t, level, s.left(t), s.key(t), s.value(t), s.right(t));
+        }
+
+        private int skew(int t) {
+            if (t == Nil) {
+                return t;
+            }
+            var l = s.left(t);
+            if (l == Nil || s.level(l) != s.level(t)) {
+                return t;
+            }
+            var newT = with(t, s.level(t), s.right(l), s.key(t), s.value(t), s.right(t));
+            return withRight(l, newT);
+        }
+
+        private int split(int t) {
+            if (t == Nil) {
+                return t;
+            }
+            var r = s.right(t);
+            if (r == Nil || s.right(r) == Nil || s.level(s.right(r)) != s.level(t)) {
+                return t;
+            }
+            var newT = with(t, s.level(t), s.left(t), s.key(t), s.value(t), s.left(r));
+            return with(r, s.level(r) + 1, newT, s.key(r), s.value(r), s.right(r));
+        }
+
+        int insert(int t, long key, long value) {
+            if (t == Nil) {
+                return s.node(1, Nil, key, value, Nil);
+            }
+            var k = s.key(t);
+            if (key == k) {
+                found = true;
+                return with(t, s.level(t), s.left(t), key, value, s.right(t));
+            }
+            t = key < k ? withLeft(t, insert(s.left(t), key, value))
+                        : withRight(t, insert(s.right(t), key, value));
+            return split(skew(t));
+        }
+
+        // precondition: key is in t
+        int delete(int t, long key) {
+            var k = s.key(t);
+            if (key < k) {
+                t = withLeft(t, delete(s.left(t), key));
+            } else if (key > k) {
+                t = withRight(t, delete(s.right(t), key));
+            } else if (s.left(t) == Nil && s.right(t) == Nil) {
+                return Nil;
+            } else if (s.left(t) == Nil) {
+                var succ = s.right(t);
+                while (s.left(succ) != Nil) {
+                    succ = s.left(succ);
+                }
+                var sk = s.key(succ);
+                t = with(t, s.level(t), Nil, sk, s.value(succ), delete(s.right(t), sk));
+            } else {
+                var pred = s.left(t);
+                while (s.right(pred) != Nil) {
+                    pred = s.right(pred);
+                }
+                var pk = s.key(pred);
+                t = with(t, s.level(t), delete(s.left(t), pk), pk, s.value(pred), s.right(t));
+            }
+            // rebalance: decrease the level if needed, then skew and split
+            var shouldBe = Math.min(lvl(s.left(t)), lvl(s.right(t))) + 1;
+            if (shouldBe < s.level(t)) {
+                t = withLevel(t, shouldBe);
+                var r = s.right(t);
+                if (r != Nil && shouldBe < s.level(r)) {
+                    t = withRight(t, withLevel(r, shouldBe));
+                }
+            }
+            t = skew(t);
+            if (s.right(t) != Nil) {
+                t = withRight(t, skew(s.right(t)));
+                var r = s.right(t);
+                if (s.right(r) != Nil) {
+                    t = withRight(t, withRight(r, skew(s.right(r))));
+                }
+            }
+            t = split(t);
+            if (s.right(t) != Nil) {
+                t = withRight(t, split(s.right(t)));
+            }
+            return t;
+        }
+    }
+
+    /**
+     * Off-heap storage for the nodes of any number of {@link OffHeapLongMap}
+     * versions. Slots are 32 bytes (key, value, left, right, level) and are
+     * handed out from 1MB chunks allocated in the store's {@link Arena}.
+     * Closing the store frees all of them.
+     */
+    public static final class Store implements AutoCloseable {
+        private static final int SlotBytes = 32;
+        private static final int ChunkBits = 15; // 32K slots per chunk
+        private static final int ChunkMask = (1 << ChunkBits) - 1;
+
+        private static final long KeyOff = 0, ValueOff = 8, LeftOff = 16, RightOff = 20, LevelOff = 24;
+
+        private final Arena arena;
+        private volatile MemorySegment[] chunks = new MemorySegment[0];
+        private int next = 0; // guarded by this
+
+        private Store(Arena arena) {
+            this.arena = arena;
+        }
+
+        /** A store usable from any thread (allocation is synchronized). */
+        public static Store ofShared() {
+            return new Store(Arena.ofShared());
+        }
+
+        /** A store usable only from the thread creating it. */
+        public static Store ofConfined() {
+            return new Store(Arena.ofConfined());
+        }
+
+        /** Returns the number of bytes of off-heap memory reserved so far. */
+        public long bytesReserved() {
+            return ((long) chunks.length * SlotBytes) << ChunkBits;
+        }
+
+        /** Frees the nodes of all maps in this store. */
+        @Override public void close() {
+            arena.close();
+        }
+
+        synchronized int allocated() {
+            return next;
+        }
+
+        synchronized int node(int level, int left, long key, long value, int right) {
+            if (next == Integer.MAX_VALUE) {
+                throw new IllegalStateException("store is full");
+            }
+            var n = next++;
+            var chunk = n >>> ChunkBits;
+            if (chunk == chunks.length) {
+                var grown = Arrays.copyOf(chunks, chunk + 1);
+                grown[chunk] = arena.allocate((long) SlotBytes << ChunkBits, SlotBytes);
+                chunks = grown;
+            }
+            set(n, level, left, key, value, right);
+            return n;
+        }
+
+        void set(int n, int level, int left, long key, long value, int right) {
+            var c = chunks[n >>> ChunkBits];
+            var base = (long) (n & ChunkMask) * SlotBytes;
+            c.set(ValueLayout.JAVA_LONG, base + KeyOff, key);
+            c.set(ValueLayout.JAVA_LONG, base + ValueOff, value);
+            c.set(ValueLayout.JAVA_INT, base + LeftOff, left);
+            c.set(ValueLayout.JAVA_INT, base + RightOff, right);
+            c.set(ValueLayout.JAVA_INT, base + LevelOff, level);
+        }
+
+        private MemorySegment chunk(int n) {
+            return chunks[n >>> ChunkBits];
+        }
+
+        private static long base(int n) {
+            return (long) (n & ChunkMask) * SlotBytes;
+        }
+
+        long key(int n) {
+            return chunk(n).get(ValueLayout.JAVA_LONG, base(n) + KeyOff);
+        }
+
+        long value(int n) {
+            return chunk(n).get(ValueLayout.JAVA_LONG, base(n) + ValueOff);
+        }
+
+        int left(int n) {
+            return chunk(n).get(ValueLayout.JAVA_INT, base(n) + LeftOff);
+        }
+
+        int right(int n) {
+            return chunk(n).get(ValueLayout.JAVA_INT, base(n) + RightOff);
+        }
+
+        int level(int n) {
+            return chunk(n).get(ValueLayout.JAVA_INT, base(n) + LevelOff);
+        }
+    }
+}
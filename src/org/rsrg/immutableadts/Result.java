@@ -1,6 +1,8 @@
 package org.rsrg.immutableadts;
 
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 /**
@@ -79,16 +81,19 @@ public sealed interface Result<T, E> {
      * Evaluates the given results from left to right collecting the values
      * into a list. Returns the first error value encountered, if any.
      */
+    @SuppressWarnings("unchecked")
     static <T, E> Result<VList<T>, E> sequence(VList<Result<T, E>> xs) {
-        var result = new ArrayList<T>();
-        for (var res : xs.reverse()) {
+        var values = new Object[xs.length()];
+        var i = 0;
+        for (var res : xs) {
             switch (res) {
-                case Ok(var r) -> result.add(r);
-                case Err(_) -> {
+                case Ok(var r) -> values[i++] = r;
+                case Err(var e) -> {
+                    return err(e);
                 }
             }
         }
-        return ok(VList.ofAll(result));
+        return ok(VList.of((T[]) values));
     }
 
     /**
@@ -110,6 +115,54 @@ public sealed interface Result<T, E> {
         return ok(VList.ofAll(result));
     }
 
+    /**
+     * Like {@link #traverse}, but applies {@code f} to up to
+     * {@code maxConcurrency} elements at a time, each on its own virtual
+     * thread; blocks until done.
+     * <p>
+     * The results keep the order of {@code xs}. Once some element yields an
+     * {@link Err}, no further elements (to its right) are started and those
+     * still running are interrupted; the error returned is the one the
+     * sequential {@link #traverse} would have returned. If {@code f} throws,
+     * the traversal is abandoned and the exception rethrown.
+     */
+    static <T, S, E> Result<VList<S>, E> traverseParallel(Iterable<T> xs, int maxConcurrency,
+                                                          Function<T, Result<S, E>> f) {
+        return traverseParallel(xs, maxConcurrency, ResultTraversal.VirtualThreads, f);
+    }
+
+    /**
+     * Like {@link #traverseParallel(Iterable, int, Function)}, but runs
+     * {@code f} on {@code executor}.
+     */
+    static <T, S, E> Result<VList<S>, E> traverseParallel(Iterable<T> xs, int maxConcurrency,
+                                                          Executor executor,
+                                                          Function<T, Result<S, E>> f) {
+        return ResultTraversal.await(ResultTraversal.start(xs, maxConcurrency, executor, f));
+    }
+
+    /**
+     * The non-blocking version of
+     * {@link #traverseParallel(Iterable, int, Function)}: returns a future
+     * of the result instead of waiting for it. Cancelling the future
+     * interrupts any applications of {@code f} still running; if {@code f}
+     * throws, the future completes exceptionally.
+     */
+    static <T, S, E> CompletableFuture<Result<VList<S>, E>> traverseAsync(Iterable<T> xs, int maxConcurrency,
+                                                                          Function<T, Result<S, E>> f) {
+        return traverseAsync(xs, maxConcurrency, ResultTraversal.VirtualThreads, f);
+    }
+
+    /**
+     * Like {@link #traverseAsync(Iterable, int, Function)}, but runs
+     * {@code f} on {@code executor}.
+     */
+    static <T, S, E> CompletableFuture<Result<VList<S>, E>> traverseAsync(Iterable<T> xs, int maxConcurrency,
+                                                                          Executor executor,
+                                                                          Function<T, Result<S, E>> f) {
+        return ResultTraversal.start(xs, maxConcurrency, executor, f);
+    }
+
     // actual implementations:
 
     record Ok<T, E>(T t) implements Result<T, E> {
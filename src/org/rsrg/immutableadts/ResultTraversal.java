@@ -0,0 +1,211 @@
+package org.rsrg.immutableadts;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Backs {@link Result#traverseAsync} and {@link Result#traverseParallel}.
+ * <p>
+ * A fixed number of workers (at most the requested concurrency) repeatedly
+ * claim the next unprocessed index and apply {@code f} to the element there.
+ * The {@code cutoff} is the index of the leftmost {@link Result.Err} (or
+ * exception thrown by {@code f}) seen so far: indices beyond it are no longer
+ * claimed and workers still busy with one of them are interrupted. Indices
+ * are claimed in ascending order, so every element left of the final cutoff
+ * is processed, and the outcome is the same as that of the sequential
+ * {@link Result#traverse}.
+ */
+final class ResultTraversal<T, S, E> {
+
+    /** Starts one new virtual thread per task. */
+    static final Executor VirtualThreads = r -> Thread.ofVirtual().name("result-traverse").start(r);
+
+    private final Object[] items;
+    private final Object[] results; // the value (or error, or Failure) for each index
+    private final Function<T, Result<S, E>> f;
+    private final Worker[] workers;
+    private final CompletableFuture<Result<VList<S>, E>> promise = new CompletableFuture<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger cutoff; // -1 once abandoned
+    private final AtomicInteger active;
+
+    private ResultTraversal(Object[] items, int maxConcurrency, Function<T, Result<S, E>> f) {
+        this.items = items;
+        this.results = new Object[items.length];
+        this.f = f;
+        this.cutoff = new AtomicInteger(items.length);
+        this.workers = new ResultTraversal.Worker[Math.min(maxConcurrency, items.length)];
+        this.active = new AtomicInteger(workers.length);
+        for (var i = 0; i < workers.length; i++) {
+            workers[i] = new Worker();
+        }
+    }
+
+    static <T, S, E> CompletableFuture<Result<VList<S>, E>> start(Iterable<T> xs, int maxConcurrency,
+                                                                  Executor executor,
+                                                                  Function<T, Result<S, E>> f) {
+        Objects.requireNonNull(executor, "executor is null");
+        Objects.requireNonNull(f, "fn is null");
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        var buffer = new ArrayList<T>();
+        for (var x : xs) {
+            buffer.add(x);
+        }
+        if (buffer.isEmpty()) {
+            return CompletableFuture.completedFuture(Result.ok(VList.empty()));
+        }
+        var t = new ResultTraversal<>(buffer.toArray(), maxConcurrency, f);
+        // however the promise completes (including being cancelled by the
+        // caller), nothing left running is of any use anymore
+        t.promise.whenComplete((_, _) -> t.stop());
+        for (var i = 0; i < t.workers.length; i++) {
+            try {
+                executor.execute(t.workers[i]);
+            } catch (RejectedExecutionException e) {
+                t.promise.completeExceptionally(e);
+                t.active.addAndGet(-(t.workers.length - i));
+                break;
+            }
+        }
+        return t.promise;
+    }
+
+    /**
+     * Waits for {@code future}, rethrowing whatever {@code f} threw. If the
+     * waiting thread is interrupted, the traversal is cancelled.
+     */
+    static <R> R await(CompletableFuture<R> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("interrupted while waiting for traversal");
+        } catch (ExecutionException e) {
+            switch (e.getCause()) {
+                case RuntimeException re -> throw re;
+                case Error err -> throw err;
+                default -> throw new CompletionException(e.getCause());
+            }
+        }
+    }
+
+    private void lowerCutoff(int index) {
+        var current = cutoff.get();
+        while (index < current) {
+            if (cutoff.compareAndSet(current, index)) {
+                for (var w : workers) {
+                    w.cancelAbove(index);
+                }
+                return;
+            }
+            current = cutoff.get();
+        }
+    }
+
+    private void stop() {
+        cutoff.set(-1);
+        for (var w : workers) {
+            w.cancelAbove(-1);
+        }
+    }
+
+    // called by the last worker to exit
+    @SuppressWarnings("unchecked") private void finish() {
+        var c = cutoff.get();
+        if (c < 0 || promise.isDone()) {
+            return;
+        }
+        if (c < items.length && results[c] instanceof Failure(var t)) {
+            promise.completeExceptionally(t);
+        } else if (c < items.length) {
+            promise.complete(Result.err((E) results[c]));
+        } else {
+            promise.complete(Result.ok(VList.of((S[]) results)));
+        }
+    }
+
+    // what f threw for an index
+    private record Failure(Throwable cause) {}
+
+    private final class Worker implements Runnable {
+        // guarded by this: the thread applying f (if any), to which index,
+        // and whether we interrupted it
+        private Thread thread;
+        private int index;
+        private boolean interrupted;
+
+        @SuppressWarnings("unchecked") @Override public void run() {
+            try {
+                for (var i = next.getAndIncrement(); begin(i); i = next.getAndIncrement()) {
+                    try {
+                        Result<S, E> r;
+                        try {
+                            r = f.apply((T) items[i]);
+                        } finally {
+                            end();
+                        }
+                        switch (r) {
+                            case Result.Ok(var s) -> results[i] = s;
+                            case Result.Err(var e) -> {
+                                results[i] = e;
+                                lowerCutoff(i);
+                            }
+                        }
+                    } catch (Throwable t) {
+                        // failures of cancelled (or irrelevant) work are
+                        // ignored; others end the traversal like an error
+                        // would, unless an error further left turns up
+                        if (i < cutoff.get()) {
+                            results[i] = new Failure(t);
+                            lowerCutoff(i);
+                        }
+                    }
+                }
+            } finally {
+                if (active.decrementAndGet() == 0) {
+                    finish();
+                }
+            }
+        }
+
+        // checked under the lock: either we see a lowered cutoff here, or
+        // the canceller sees our thread (and interrupts it)
+        private synchronized boolean begin(int i) {
+            if (i >= cutoff.get()) {
+                return false;
+            }
+            thread = Thread.currentThread();
+            index = i;
+            return true;
+        }
+
+        private synchronized void end() {
+            thread = null;
+            if (interrupted) {
+                // don't leak our interrupt into whatever runs next on this
+                // (possibly pooled) thread
+                interrupted = false;
+                Thread.interrupted();
+            }
+        }
+
+        synchronized void cancelAbove(int limit) {
+            if (thread != null && index > limit && !interrupted) {
+                interrupted = true;
+                thread.interrupt();
+            }
+        }
+    }
+}
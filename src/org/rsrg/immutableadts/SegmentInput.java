@@ -0,0 +1,135 @@
+package org.rsrg.immutableadts;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link DataInput} reading (big endian, like {@link java.io.DataOutput}
+ * writes) from a {@link MemorySegment}, starting at some position. Lets
+ * {@link ElementCodec}s decode elements in place, e.g. from a memory-mapped
+ * file.
+ */
+final class SegmentInput implements DataInput {
+
+    private static final ValueLayout.OfShort BeShort = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfChar BeChar = ValueLayout.JAVA_CHAR_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfInt BeInt = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong BeLong = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final MemorySegment segment;
+    private final long limit;
+    private long pos;
+
+    SegmentInput(MemorySegment segment, long pos, long limit) {
+        this.segment = segment;
+        this.pos = pos;
+        this.limit = limit;
+    }
+
+    long position() {
+        return pos;
+    }
+
+    void seek(long pos) {
+        this.pos = pos;
+    }
+
+    // returns the position to read n bytes at (and moves past them)
+    private long advance(long n) throws EOFException {
+        if (n > limit - pos) {
+            throw new EOFException("read past the end of the segment at " + pos);
+        }
+        var at = pos;
+        pos += n;
+        return at;
+    }
+
+    @Override public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override public void readFully(byte[] b, int off, int len) throws IOException {
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, advance(len), b, off, len);
+    }
+
+    @Override public int skipBytes(int n) {
+        var skipped = (int) Math.max(0, Math.min(n, limit - pos));
+        pos += skipped;
+        return skipped;
+    }
+
+    @Override public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override public byte readByte() throws IOException {
+        return segment.get(ValueLayout.JAVA_BYTE, advance(1));
+    }
+
+    @Override public int readUnsignedByte() throws IOException {
+        return readByte() & 0xff;
+    }
+
+    @Override public short readShort() throws IOException {
+        return segment.get(BeShort, advance(2));
+    }
+
+    @Override public int readUnsignedShort() throws IOException {
+        return readShort() & 0xffff;
+    }
+
+    @Override public char readChar() throws IOException {
+        return segment.get(BeChar, advance(2));
+    }
+
+    @Override public int readInt() throws IOException {
+        return segment.get(BeInt, advance(4));
+    }
+
+    @Override public long readLong() throws IOException {
+        return segment.get(BeLong, advance(8));
+    }
+
+    @Override public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * Reads bytes (each taken as a char) up to a line terminator or the end
+     * of the segment, as {@link DataInputStream#readLine} does; returns null
+     * if there's nothing left to read.
+     */
+    @Override public String readLine() throws IOException {
+        if (pos >= limit) {
+            return null;
+        }
+        var sb = new StringBuilder();
+        while (pos < limit) {
+            var c = readUnsignedByte();
+            if (c == '\n') {
+                break;
+            }
+            if (c == '\r') {
+                if (pos < limit && segment.get(ValueLayout.JAVA_BYTE, pos) == '\n') {
+                    pos++;
+                }
+                break;
+            }
+            sb.append((char) c);
+        }
+        return sb.toString();
+    }
+
+    @Override public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+}
@@ -0,0 +1,272 @@
+package org.rsrg.immutableadts;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+/**
+ * A concurrent sorted map whose key space is split into ranges, each held in
+ * its own independently updated {@link AtomicVTreeMap} (a shard). Writers to
+ * different shards never contend with one another, so write throughput
+ * scales with the number of shards in use; single key reads go straight to
+ * the owning shard's current version.
+ * <p>
+ * The ranges are given by a sorted list of split keys {@code s_1 < ... <
+ * s_(N-1)}: shard 0 holds keys {@code < s_1}, shard {@code i} holds keys in
+ * {@code [s_i, s_(i+1))} and the last shard holds keys {@code >= s_(N-1)}.
+ * Because the partitioning is by range, iterating the shards in order
+ * yields all bindings in ascending key order.
+ * <p>
+ * A consistent view across all shards is obtained with {@link #snapshot()}:
+ * it reads every shard's current version twice and retries until both reads
+ * agree (versions are never reused, so agreement means there was an instant
+ * at which all of them were current). Should a snapshot keep losing that race
+ * against writers, it briefly holds new writers back until it succeeds.
+ *
+ * @param <K> the type of keys.
+ * @param <V> the type of values.
+ */
+public final class StripedVTreeMap<K, V> implements Iterable<Pair<K, V>> {
+
+    private static final int OptimisticSnapshotAttempts = 8;
+
+    private final Comparator<K> keyOrder;
+    private final List<K> splitKeys;
+    private final List<AtomicVTreeMap<K, V>> shards;
+
+    // number of snapshots currently holding writers back
+    private final AtomicInteger gate = new AtomicInteger(0);
+
+    private StripedVTreeMap(Comparator<K> keyOrder, List<K> splitKeys) {
+        for (int i = 1; i < splitKeys.size(); i++) {
+            if (keyOrder.compare(splitKeys.get(i - 1), splitKeys.get(i)) >= 0) {
+                throw new IllegalArgumentException("split keys must be strictly increasing");
+            }
+        }
+        this.keyOrder = keyOrder;
+        this.splitKeys = List.copyOf(splitKeys);
+        var shards = new ArrayList<AtomicVTreeMap<K, V>>(splitKeys.size() + 1);
+        for (int i = 0; i <= splitKeys.size(); i++) {
+            shards.add(AtomicVTreeMap.empty(keyOrder));
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    /**
+     * Returns an empty map with {@code splitKeys.size() + 1} shards.
+     *
+     * @throws IllegalArgumentException if {@code splitKeys} isn't strictly
+     *                                  increasing w.r.t. {@code o}.
+     */
+    public static <A, B> StripedVTreeMap<A, B> empty(Comparator<A> o, List<A> splitKeys) {
+        return new StripedVTreeMap<>(o, splitKeys);
+    }
+
+    public static <A extends Comparable<A>, B> StripedVTreeMap<A, B> empty(List<A> splitKeys) {
+        return empty(Comparable::compareTo, splitKeys);
+    }
+
+    private int shardOf(K key) {
+        return shardIndex(keyOrder, splitKeys, key);
+    }
+
+    /** O(log N) - returns the index of the shard owning {@code key}. */
+    private static <K> int shardIndex(Comparator<K> keyOrder, List<K> splitKeys, K key) {
+        int lo = 0;
+        int hi = splitKeys.size();
+        while (lo < hi) { // the number of split keys <= key
+            var mid = (lo + hi) >>> 1;
+            if (keyOrder.compare(splitKeys.get(mid), key) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Returns the shard owning {@code key}, once no snapshot is holding writers back. */
+    private AtomicVTreeMap<K, V> shardForWrite(K key) {
+        while (gate.get() > 0) {
+            Thread.yield();
+        }
+        return shards.get(shardOf(key));
+    }
+
+    // reads:
+
+    public Maybe<V> lookup(K key) {
+        return shards.get(shardOf(key)).lookup(key);
+    }
+
+    public boolean member(K key) {
+        return shards.get(shardOf(key)).snapshot().member(key);
+    }
+
+    /** O(N) - the number of bindings (as of a {@link #snapshot()}). */
+    public int size() {
+        return snapshot().size();
+    }
+
+    /** Iterates over a {@link #snapshot()} of this map in ascending key order. */
+    @Override public Iterator<Pair<K, V>> iterator() {
+        return snapshot().iterator();
+    }
+
+    // writes:
+
+    public void insert(K key, V value) {
+        shardForWrite(key).update(m -> m.insert(key, value));
+    }
+
+    public void remove(K key) {
+        shardForWrite(key).update(m -> m.remove(key));
+    }
+
+    /** See {@link AtomicVTreeMap#compute}. */
+    public Maybe<V> compute(K key, BiFunction<K, Maybe<V>, Maybe<V>> f) {
+        return shardForWrite(key).compute(key, f);
+    }
+
+    /** See {@link AtomicVTreeMap#merge}. */
+    public V merge(K key, V value, BinaryOperator<V> f) {
+        return shardForWrite(key).merge(key, value, f);
+    }
+
+    // snapshots:
+
+    /** O(N) - returns a consistent, immutable view of all shards. */
+    public Snapshot<K, V> snapshot() {
+        var gated = false;
+        try {
+            for (int attempt = 0; ; attempt++) {
+                if (attempt == OptimisticSnapshotAttempts) {
+                    gate.incrementAndGet();
+                    gated = true;
+                }
+                var first = collect();
+                var second = collect();
+                if (sameVersions(first, second)) {
+                    return new Snapshot<>(keyOrder, splitKeys, List.copyOf(second));
+                }
+            }
+        } finally {
+            if (gated) {
+                gate.decrementAndGet();
+            }
+        }
+    }
+
+    private ArrayList<VTreeMap<K, V>> collect() {
+        var result = new ArrayList<VTreeMap<K, V>>(shards.size());
+        for (var shard : shards) {
+            result.add(shard.snapshot());
+        }
+        return result;
+    }
+
+    private static <K, V> boolean sameVersions(List<VTreeMap<K, V>> xs, List<VTreeMap<K, V>> ys) {
+        for (int i = 0; i < xs.size(); i++) {
+            if (xs.get(i) != ys.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * A consistent view of every shard of a {@link StripedVTreeMap} at one
+     * point in time.
+     */
+    public static final class Snapshot<K, V> implements Iterable<Pair<K, V>> {
+        private final Comparator<K> keyOrder;
+        private final List<K> splitKeys;
+        private final List<VTreeMap<K, V>> shards;
+
+        private Snapshot(Comparator<K> keyOrder, List<K> splitKeys, List<VTreeMap<K, V>> shards) {
+            this.keyOrder = keyOrder;
+            this.splitKeys = splitKeys;
+            this.shards = shards;
+        }
+
+        public Maybe<V> lookup(K key) {
+            return shardOf(key).lookup(key);
+        }
+
+        public boolean member(K key) {
+            return shardOf(key).member(key);
+        }
+
+        private VTreeMap<K, V> shardOf(K key) {
+            return shards.get(shardIndex(keyOrder, splitKeys, key));
+        }
+
+        /** O(N) - returns the total number of bindings. */
+        public int size() {
+            var result = 0;
+            for (var shard : shards) {
+                result += shard.size();
+            }
+            return result;
+        }
+
+        /** Returns the (immutable) contents of each shard, in key order. */
+        public List<VTreeMap<K, V>> shards() {
+            return shards;
+        }
+
+        /** O(n) - merges the shards into a single {@link VTreeMap}. */
+        public VTreeMap<K, V> toVTreeMap() {
+            var result = VTreeMap.<K, V>empty(keyOrder);
+            for (var shard : shards) {
+                result = result.insertAll(shard);
+            }
+            return result;
+        }
+
+        /** Iterates over all bindings in ascending key order. */
+        @Override public Iterator<Pair<K, V>> iterator() {
+            return new Iterator<>() {
+                private int shard = 0;
+                private Iterator<Pair<K, V>> current = shards.getFirst().iterator();
+
+                @Override public boolean hasNext() {
+                    while (!current.hasNext() && shard + 1 < shards.size()) {
+                        current = shards.get(++shard).iterator();
+                    }
+                    return current.hasNext();
+                }
+
+                @Override public Pair<K, V> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+            };
+        }
+
+        @Override public String toString() {
+            var sb = new StringBuilder("[");
+            var first = true;
+            for (var x : this) {
+                if (first) {
+                    sb.append(x);
+                    first = false;
+                } else {
+                    sb.append(", ").append(x);
+                }
+            }
+            return sb.append("]").toString();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.rsrg.immutableadts;
+
+import java.util.List;
+
+/**
+ * The shape of a {@link VTreeMap}'s or {@link VTreeSet}'s underlying AA tree,
+ * as measured by {@code stats()}.
+ *
+ * @param nodes          the number of nodes.
+ * @param height         the number of nodes on the longest root to leaf path.
+ * @param levelHistogram element {@code i} counts the nodes at level
+ *                       {@code i + 1}.
+ * @param averageDepth   the mean number of nodes visited by a successful
+ *                       search (1 for the root).
+ * @param estimatedBytes an estimate of the heap retained by the tree's own
+ *                       objects (nodes and, for maps, bindings), not counting
+ *                       keys and values.
+ * @param violation      the first AA invariant (AA1-AA4) found broken, if any.
+ */
+public record TreeStats(int nodes, int height, List<Integer> levelHistogram, double averageDepth,
+                        long estimatedBytes, Maybe<String> violation) {
+
+    public TreeStats {
+        levelHistogram = List.copyOf(levelHistogram);
+    }
+
+    /** Returns true only if no AA invariant was found broken. */
+    public boolean balanced() {
+        return violation.isEmpty();
+    }
+}
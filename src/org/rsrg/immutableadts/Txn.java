@@ -0,0 +1,461 @@
+package org.rsrg.immutableadts;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A lightweight software transactional memory over {@link VTreeMap}s and
+ * {@link VTreeSet}s.
+ * <p>
+ * Shared, mutable state lives in {@link MapRef}s and {@link SetRef}s, each
+ * holding the current (immutable) version of a map or set. A transaction
+ * reads and writes any number of refs; either all of its writes become
+ * visible together or none do:
+ * <pre>{@code
+ * var byId = new Txn.MapRef<>(VTreeMap.<Integer, String>empty());
+ * var names = new Txn.SetRef<>(VTreeSet.<String>empty());
+ * Txn.run(tx -> {
+ *     tx.insert(byId, 42, "ada");
+ *     tx.add(names, "ada");
+ * });
+ * }</pre>
+ * Transactions run optimistically, in the style of TL2: every read sees a
+ * consistent set of versions (as of some point in time), and writes are only
+ * buffered. On commit the refs written to are locked (in a fixed order, so
+ * commits can't deadlock), the reads are validated and the buffered writes
+ * are applied to the then current versions in one {@link VTreeMap#insertAll}
+ * / {@link VTreeMap#removeAll} each.
+ * <p>
+ * Conflicts are detected per key rather than per ref: a transaction only has
+ * to retry if some key it actually looked at was changed by a concurrent
+ * commit. Writers touching disjoint keys of the same map never invalidate one
+ * another. (The exception is {@link #snapshot}, which reads -- and so
+ * depends on -- the whole map or set.)
+ * <p>
+ * Since a transaction may be retried, its body should be free of side
+ * effects other than those made through the {@code Txn} it is handed, which
+ * must not be used outside of the body (or from other threads). Transactions
+ * don't nest. Exceptions thrown by the body abort the transaction (none of
+ * its writes take effect) and propagate to the caller.
+ */
+public final class Txn {
+
+    /** Global version clock; bumped once by every committing writer. */
+    private static final AtomicLong Clock = new AtomicLong();
+    private static final AtomicLong RefIds = new AtomicLong();
+
+    // the versions this transaction is reading are all current as of this
+    private long readVersion;
+    private final Map<Ref<?>, Access<?>> accesses = new IdentityHashMap<>();
+
+    private Txn() {
+        this.readVersion = Clock.get();
+    }
+
+    /**
+     * Runs {@code body} as a transaction (retrying it until it commits
+     * without conflicts); returns the result of the committed run.
+     */
+    public static <R> R atomic(Function<Txn, R> body) {
+        Objects.requireNonNull(body, "body is null");
+        for (var attempt = 0; ; attempt++) {
+            var tx = new Txn();
+            try {
+                var result = body.apply(tx);
+                if (tx.commit()) {
+                    return result;
+                }
+            } catch (Conflict _) {
+                // fall through and retry
+            }
+            backoff(attempt);
+        }
+    }
+
+    /** Runs {@code body} as a transaction, see {@link #atomic}. */
+    public static void run(Consumer<Txn> body) {
+        Objects.requireNonNull(body, "body is null");
+        atomic(tx -> {
+            body.accept(tx);
+            return null;
+        });
+    }
+
+    // transactional operations:
+
+    /** O(log n) - looks {@code key} up in {@code ref}. */
+    public <K, V> Maybe<V> lookup(MapRef<K, V> ref, K key) {
+        return access(ref).lookup(key);
+    }
+
+    /** O(log n) - returns true only if {@code key} is bound in {@code ref}. */
+    public <K, V> boolean member(MapRef<K, V> ref, K key) {
+        return lookup(ref, key).nonEmpty();
+    }
+
+    /** O(log m) - (re)binds {@code key} to {@code value} in {@code ref}. */
+    public <K, V> void insert(MapRef<K, V> ref, K key, V value) {
+        Objects.requireNonNull(value, "value is null");
+        access(ref).writes.put(key, Maybe.of(value));
+    }
+
+    /** O(log m) - removes the binding for {@code key} from {@code ref}. */
+    public <K, V> void remove(MapRef<K, V> ref, K key) {
+        access(ref).writes.put(key, Maybe.none());
+    }
+
+    /** O(log n) - returns true only if {@code item} is in {@code ref}. */
+    public <A> boolean contains(SetRef<A> ref, A item) {
+        return access(ref).contains(item);
+    }
+
+    /** O(log m) - adds {@code item} to {@code ref}. */
+    public <A> void add(SetRef<A> ref, A item) {
+        access(ref).writes.put(item, true);
+    }
+
+    /** O(log m) - removes {@code item} from {@code ref}. */
+    public <A> void remove(SetRef<A> ref, A item) {
+        access(ref).writes.put(item, false);
+    }
+
+    /**
+     * O(m log(n/m + 1)) - returns the whole map as seen by this transaction
+     * (including its own writes so far). The transaction then conflicts with
+     * any concurrent change to {@code ref}, not just to particular keys.
+     */
+    public <K, V> VTreeMap<K, V> snapshot(MapRef<K, V> ref) {
+        var a = access(ref);
+        a.wholeRead = true;
+        return a.applyWrites(a.base.value());
+    }
+
+    /** O(m log(n/m + 1)) - the set version of {@link #snapshot(MapRef)}. */
+    public <A> VTreeSet<A> snapshot(SetRef<A> ref) {
+        var a = access(ref);
+        a.wholeRead = true;
+        return a.applyWrites(a.base.value());
+    }
+
+    // refs:
+
+    /** A mutable, transactional reference to a {@link VTreeMap}. */
+    public static final class MapRef<K, V> extends Ref<VTreeMap<K, V>> {
+
+        public MapRef(VTreeMap<K, V> initial) {
+            super(initial);
+        }
+
+        /** O(1) - returns the latest committed version of the map. */
+        public VTreeMap<K, V> get() {
+            return current.value();
+        }
+
+        @Override MapAccess<K, V> newAccess(Version<VTreeMap<K, V>> base) {
+            return new MapAccess<>(this, base);
+        }
+    }
+
+    /** A mutable, transactional reference to a {@link VTreeSet}. */
+    public static final class SetRef<A> extends Ref<VTreeSet<A>> {
+
+        public SetRef(VTreeSet<A> initial) {
+            super(initial);
+        }
+
+        /** O(1) - returns the latest committed version of the set. */
+        public VTreeSet<A> get() {
+            return current.value();
+        }
+
+        @Override SetAccess<A> newAccess(Version<VTreeSet<A>> base) {
+            return new SetAccess<>(this, base);
+        }
+    }
+
+    abstract static sealed class Ref<T> permits MapRef, SetRef {
+        final long id = RefIds.incrementAndGet(); // commits lock refs in id order
+        final ReentrantLock lock = new ReentrantLock();
+        volatile Version<T> current;
+
+        Ref(T initial) {
+            this.current = new Version<>(Objects.requireNonNull(initial), 0);
+        }
+
+        abstract Access<T> newAccess(Version<T> base);
+
+        @Override public String toString() {
+            return current.value().toString();
+        }
+    }
+
+    /** A committed value along with the clock value it was committed at. */
+    record Version<T>(T value, long stamp) {}
+
+    // implementation:
+
+    @SuppressWarnings("unchecked")
+    private <K, V> MapAccess<K, V> access(MapRef<K, V> ref) {
+        return (MapAccess<K, V>) accessOf(ref);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <A> SetAccess<A> access(SetRef<A> ref) {
+        return (SetAccess<A>) accessOf(ref);
+    }
+
+    private <T> Access<T> accessOf(Ref<T> ref) {
+        Objects.requireNonNull(ref, "ref is null");
+        @SuppressWarnings("unchecked") var a = (Access<T>) accesses.get(ref);
+        if (a != null) {
+            return a;
+        }
+        while (true) {
+            var v = stableVersion(ref);
+            if (v == null) {
+                throw Conflict.Instance;
+            }
+            if (v.stamp() <= readVersion) {
+                a = ref.newAccess(v);
+                accesses.put(ref, a);
+                return a;
+            }
+            // ref changed after we started: move our read version forward
+            // (provided everything read so far is still current) and retry
+            extend();
+        }
+    }
+
+    private void extend() {
+        var now = Clock.get();
+        for (var a : accesses.values()) {
+            if (!a.revalidate(now)) {
+                throw Conflict.Instance;
+            }
+        }
+        readVersion = now;
+    }
+
+    private boolean commit() {
+        var writers = new ArrayList<Access<?>>();
+        for (var a : accesses.values()) {
+            if (a.hasWrites()) {
+                writers.add(a);
+            }
+        }
+        if (writers.isEmpty()) {
+            // read-only: everything read was consistent as of readVersion
+            return true;
+        }
+        writers.sort(Comparator.comparingLong(a -> a.ref.id));
+        var locked = 0;
+        try {
+            for (var w : writers) {
+                w.ref.lock.lock();
+                locked++;
+            }
+            var writeVersion = Clock.incrementAndGet();
+            if (writeVersion != readVersion + 1) {
+                // somebody committed in between -- check the keys we read
+                for (var a : accesses.values()) {
+                    if (!a.revalidate(Long.MAX_VALUE)) {
+                        return false;
+                    }
+                }
+            }
+            for (var w : writers) {
+                w.publish(writeVersion);
+            }
+            return true;
+        } finally {
+            for (var i = locked - 1; i >= 0; i--) {
+                writers.get(i).ref.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the current version of {@code ref}, or {@code null} if it is
+     * being committed to by another thread.
+     */
+    private static <T> Version<T> stableVersion(Ref<T> ref) {
+        var pre = ref.current;
+        if (ref.lock.isLocked() && !ref.lock.isHeldByCurrentThread()) {
+            return null;
+        }
+        return ref.current == pre ? pre : null;
+    }
+
+    private static void backoff(int attempt) {
+        if (attempt < 2) {
+            Thread.onSpinWait();
+        } else {
+            var maxNanos = 1_000L << Math.min(attempt, 10);
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(maxNanos));
+        }
+    }
+
+    /** What a transaction has read from and (tentatively) written to a ref. */
+    private abstract static class Access<T> {
+        final Ref<T> ref;
+        Version<T> base;
+        boolean wholeRead = false;
+
+        Access(Ref<T> ref, Version<T> base) {
+            this.ref = ref;
+            this.base = base;
+        }
+
+        abstract boolean hasWrites();
+
+        /** Returns true only if every key read still has the value seen. */
+        abstract boolean readsHoldIn(T current);
+
+        abstract T applyWrites(T current);
+
+        /**
+         * Returns true if this access' reads are still valid in the current
+         * version of the ref (provided that version is no newer than
+         * {@code bound}); if so, rebases further reads onto that version.
+         */
+        final boolean revalidate(long bound) {
+            var v = stableVersion(ref);
+            if (v == null || v.stamp() > bound) {
+                return false;
+            }
+            if (v == base) {
+                return true;
+            }
+            if (wholeRead || !readsHoldIn(v.value())) {
+                return false;
+            }
+            base = v;
+            return true;
+        }
+
+        /** Precondition: the current thread holds {@code ref}'s lock. */
+        final void publish(long writeVersion) {
+            ref.current = new Version<>(applyWrites(ref.current.value()), writeVersion);
+        }
+    }
+
+    private static final class MapAccess<K, V> extends Access<VTreeMap<K, V>> {
+        final TreeMap<K, Maybe<V>> reads;
+        final TreeMap<K, Maybe<V>> writes; // none() marks a removal
+
+        MapAccess(MapRef<K, V> ref, Version<VTreeMap<K, V>> base) {
+            super(ref, base);
+            this.reads = new TreeMap<>(base.value().keyOrder());
+            this.writes = new TreeMap<>(base.value().keyOrder());
+        }
+
+        Maybe<V> lookup(K key) {
+            var written = writes.get(key);
+            if (written != null) {
+                return written;
+            }
+            var seen = reads.get(key);
+            if (seen == null) {
+                seen = base.value().lookup(key);
+                reads.put(key, seen);
+            }
+            return seen;
+        }
+
+        @Override boolean hasWrites() {
+            return !writes.isEmpty();
+        }
+
+        @Override boolean readsHoldIn(VTreeMap<K, V> current) {
+            for (var e : reads.entrySet()) {
+                if (!current.lookup(e.getKey()).equals(e.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override VTreeMap<K, V> applyWrites(VTreeMap<K, V> current) {
+            if (writes.isEmpty()) {
+                return current;
+            }
+            var inserts = new ArrayList<Pair<K, V>>();
+            var removals = new ArrayList<K>();
+            for (var e : writes.entrySet()) {
+                switch (e.getValue()) {
+                    case Maybe.Some(var v) -> inserts.add(Pair.of(e.getKey(), v));
+                    default -> removals.add(e.getKey());
+                }
+            }
+            return current.insertAll(inserts).removeAll(removals);
+        }
+    }
+
+    private static final class SetAccess<A> extends Access<VTreeSet<A>> {
+        final TreeMap<A, Boolean> reads;
+        final TreeMap<A, Boolean> writes; // false marks a removal
+
+        SetAccess(SetRef<A> ref, Version<VTreeSet<A>> base) {
+            super(ref, base);
+            this.reads = new TreeMap<>(base.value().keyOrder());
+            this.writes = new TreeMap<>(base.value().keyOrder());
+        }
+
+        boolean contains(A item) {
+            var written = writes.get(item);
+            if (written != null) {
+                return written;
+            }
+            var seen = reads.get(item);
+            if (seen == null) {
+                seen = base.value().contains(item);
+                reads.put(item, seen);
+            }
+            return seen;
+        }
+
+        @Override boolean hasWrites() {
+            return !writes.isEmpty();
+        }
+
+        @Override boolean readsHoldIn(VTreeSet<A> current) {
+            for (var e : reads.entrySet()) {
+                if (current.contains(e.getKey()) != e.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override VTreeSet<A> applyWrites(VTreeSet<A> current) {
+            if (writes.isEmpty()) {
+                return current;
+            }
+            var adds = new ArrayList<A>();
+            var removals = new ArrayList<A>();
+            for (var e : writes.entrySet()) {
+                (e.getValue() ? adds : removals).add(e.getKey());
+            }
+            return current.addAll(adds).removeAll(removals);
+        }
+    }
+
+    /** Thrown (and caught) internally to abort and retry a transaction. */
+    private static final class Conflict extends RuntimeException {
+        static final Conflict Instance = new Conflict();
+
+        private Conflict() {
+            super("transaction conflict", null, false, false);
+        }
+    }
+}
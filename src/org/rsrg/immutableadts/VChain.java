@@ -1,6 +1,11 @@
 package org.rsrg.immutableadts;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -12,41 +17,85 @@ import java.util.function.Function;
  */
 public sealed interface VChain<A> extends Iterable<A> {
 
+    /**
+     * Amortized O(1) - concatenates {@code this} with {@code o}.
+     * <p>
+     * Repeatedly concatenating onto the same end of a chain (the common
+     * accumulate-into-a-chain pattern) would otherwise produce a degenerate,
+     * list-like tree of {@link Link}s. To keep {@link #head()} and iteration
+     * bounded, the small trailing (or leading) pieces of a spine are merged
+     * into the new piece, binary-counter style, so that such chains stay
+     * O(log n) deep.
+     */
     default VChain<A> concat(VChain<A> o) {
-        if (this == Empty.EmptyInst) {
+        if (this.isEmpty()) {
             return o;
-        } else if (o == Empty.EmptyInst) {
+        } else if (o.isEmpty()) {
             return this;
         } else {
-            return link(this, o);
+            return balancedLink(this, o);
+        }
+    }
+
+    private static <A> VChain<A> balancedLink(VChain<A> l, VChain<A> r) {
+        var carried = false;
+        // left spine, e.g.: Link(Link(t8, t2), t1) ++ t1
+        while (l instanceof Link<A>(var ll, var lr, _, _) && ll.length() > lr.length()
+                && lr.length() <= r.length()) {
+            r = link(lr, r);
+            l = ll;
+            carried = true;
+        }
+        // mirror image (prepending): t1 ++ Link(t1, Link(t2, t8))
+        while (!carried && r instanceof Link<A>(var rl, var rr, _, _) && rr.length() > rl.length()
+                && rl.length() <= l.length()) {
+            l = link(l, rl);
+            r = rr;
         }
+        return link(l, r);
     }
 
     final class Empty<A> implements VChain<A> {
         public static final VChain<?> EmptyInst = new Empty<>();
         private Empty() {}
 
+        @Override public boolean equals(Object o) {
+            return o instanceof VChain<?> other && other.isEmpty();
+        }
+
+        @Override public int hashCode() {
+            return 1;
+        }
+
         @Override public String toString() { return "Chain[]"; }
     }
 
+    /** O(1) - returns true only if this chain holds no elements. */
     default boolean isEmpty() {
-        return switch (this) {
-            case VChain.Empty<A> _ -> true;
-            case VChain.Link(var l, var r) -> l.isEmpty() && r.isEmpty();
-            case VChain.Proxy(var xs) -> xs._null();
-        };
+        return length() == 0;
     }
 
-    record Link<A>(VChain<A> l, VChain<A> r) implements VChain<A> {
+    /**
+     * An inner node; {@code length} and {@code depth} are computed
+     * (and checked) on construction so that neither needs a traversal.
+     */
+    record Link<A>(VChain<A> l, VChain<A> r, int length, int depth) implements VChain<A> {
+        public Link {
+            if (length != l.length() + r.length() || depth != 1 + Math.max(depthOf(l), depthOf(r))) {
+                throw new IllegalArgumentException("inconsistent link length/depth");
+            }
+        }
+
+        public Link(VChain<A> l, VChain<A> r) {
+            this(l, r, l.length() + r.length(), 1 + Math.max(depthOf(l), depthOf(r)));
+        }
+
         @Override public boolean equals(Object o) {
-            return switch (o) {
-                case VChain<?> other -> this.toList().equals(other.toList());
-                default -> false;
-            };
+            return o instanceof VChain<?> other && sameElements(this, other);
         }
 
         @Override public int hashCode() {
-            return this.toList().hashCode();
+            return hashOf(this);
         }
 
         @Override public String toString() {
@@ -60,13 +109,11 @@ public sealed interface VChain<A> extends Iterable<A> {
     // list1.errors().concat(list2.errors())
     // TLDR: no need to implement a vector or something using the finger
     // tree started... (just use the immutable list in the leafs).
-    // There is some locality sacrifice here, however.
+    // There is some locality sacrifice here, however (see Leaf and compact()
+    // for the array-backed alternative).
     record Proxy<A>(VList<A> xs) implements VChain<A> {
         @Override public boolean equals(Object o) {
-            return switch (o) {
-                case VChain<?> other -> this.toList().equals(other.toList());
-                default -> false;
-            };
+            return o instanceof VChain<?> other && sameElements(this, other);
         }
 
         @Override public int hashCode() {
@@ -79,40 +126,195 @@ public sealed interface VChain<A> extends Iterable<A> {
     }
 
 
-    default Maybe<A> head() {
+    /**
+     * An array-backed leaf. Unlike a {@link Proxy}, iterating one of these
+     * doesn't chase a pointer per element. See {@link #compact()}.
+     * <p>
+     * Note: the backing array is never handed out (nor mutated once the
+     * leaf is constructed).
+     */
+    final class Leaf<A> implements VChain<A> {
+        // leaves grown one element at a time by append/prepend stop at this size
+        private static final int SmallCapacity = 32;
+
+        private final Object[] elems;
+        private int hash; // cached (0 = not yet computed)
+
+        private Leaf(Object[] elems) {
+            this.elems = elems;
+        }
+
+        /** O(1) - returns the element at index {@code i} of this leaf. */
+        @SuppressWarnings("unchecked") public A get(int i) {
+            return (A) elems[Objects.checkIndex(i, elems.length)];
+        }
+
+        @Override public int length() {
+            return elems.length;
+        }
+
+        private boolean isSmall() {
+            return elems.length < SmallCapacity;
+        }
+
+        private Leaf<A> snoc(A x) {
+            var result = Arrays.copyOf(elems, elems.length + 1, Object[].class);
+            result[elems.length] = x;
+            return new Leaf<>(result);
+        }
+
+        private Leaf<A> cons(A x) {
+            var result = new Object[elems.length + 1];
+            result[0] = x;
+            System.arraycopy(elems, 0, result, 1, elems.length);
+            return new Leaf<>(result);
+        }
+
+        @SuppressWarnings("unchecked") @Override public void forEach(Consumer<? super A> action) {
+            for (var x : elems) {
+                action.accept((A) x);
+            }
+        }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof VChain<?> other && sameElements(this, other);
+        }
+
+        @Override public int hashCode() {
+            var h = hash;
+            if (h == 0) {
+                h = Arrays.hashCode(elems);
+                hash = h;
+            }
+            return h;
+        }
+
+        @Override public String toString() {
+            return String.format("Chain[%s]", this.mkString(", "));
+        }
+    }
+
+    /**
+     * O(depth) - returns the last element of this chain, if any; reaching a
+     * {@link Proxy} leaf adds a walk to its final cell (O(leaf length)).
+     */
+    default Maybe<A> last() {
         var current = this;
         while (true) {
             switch (current) {
                 case Empty<A> _ -> {
                     return Maybe.none();
                 }
-                case Link(Empty<A> _, var r) -> current = r;
-                case Link(var l, _) -> current = l;
+                case Link(var l, var r, _, _) -> current = r.isEmpty() ? l : r;
                 case Proxy(var xs) -> {
-                    return xs.headMaybe();
+                    return xs.lastMaybe();
+                }
+                case Leaf<A> lf -> {
+                    return lf.length() == 0 ? Maybe.none() : Maybe.of(lf.get(lf.length() - 1));
                 }
             }
         }
     }
 
-    default int length() {
-        int len = 0;
-        var stack = new ArrayDeque<VChain<A>>();
-        stack.push(this);
+    /**
+     * O(depth) - returns the element at (zero based) index {@code i}; the
+     * cached {@link Link} lengths say which side to descend into. The
+     * exception is a {@link Proxy} leaf, which is walked (O(leaf length)).
+     *
+     * @throws IndexOutOfBoundsException if {@code i} isn't in
+     *                                   {@code [0, length())}.
+     */
+    default A get(int i) {
+        Objects.checkIndex(i, length());
+        var current = this;
+        while (true) {
+            switch (current) {
+                case Link(var l, var r, _, _) -> {
+                    if (i < l.length()) {
+                        current = l;
+                    } else {
+                        i -= l.length();
+                        current = r;
+                    }
+                }
+                case Proxy(var xs) -> {
+                    for (var x : xs) {
+                        if (i-- == 0) {
+                            return x;
+                        }
+                    }
+                    throw new IllegalStateException("inconsistent chain length");
+                }
+                case Leaf<A> lf -> {
+                    return lf.get(i);
+                }
+                case Empty<A> _ -> throw new IllegalStateException("inconsistent chain length");
+            }
+        }
+    }
 
-        while (!stack.isEmpty()) {
-            var current = stack.pop();
+    /**
+     * O(1) - returns a chain with {@code x} added to the end of {@code this}.
+     * <p>
+     * Consecutive appends fill up a small array-backed {@link Leaf} (by
+     * copying it) instead of linking in a new leaf per element; once that
+     * leaf is full it is linked in the same way {@link #concat} would.
+     * Prefer a {@link Builder} when adding many elements in one go.
+     */
+    default VChain<A> append(A x) {
+        return switch (this) {
+            case Leaf<A> lf when lf.isSmall() -> lf.snoc(x);
+            case Link(var l, Leaf<A> r, _, _) when r.isSmall() -> link(l, r.snoc(x));
+            case Link(var l, Leaf<A> r, _, _) -> link(balancedLink(l, r), of(x));
+            case VChain<A> c when c.isEmpty() -> of(x);
+            default -> balancedLink(this, of(x));
+        };
+    }
+
+    /**
+     * O(1) - returns a chain with {@code x} added to the front of
+     * {@code this} (the mirror image of {@link #append}).
+     */
+    default VChain<A> prepend(A x) {
+        return switch (this) {
+            case Leaf<A> lf when lf.isSmall() -> lf.cons(x);
+            case Link(Leaf<A> l, var r, _, _) when l.isSmall() -> link(l.cons(x), r);
+            case Link(Leaf<A> l, var r, _, _) -> link(of(x), balancedLink(l, r));
+            case VChain<A> c when c.isEmpty() -> of(x);
+            default -> balancedLink(of(x), this);
+        };
+    }
+
+    /** O(depth) - returns the first element of this chain, if any. */
+    default Maybe<A> head() {
+        var current = this;
+        while (true) {
             switch (current) {
                 case Empty<A> _ -> {
+                    return Maybe.none();
                 }
-                case Link(var l, var r) -> {
-                    stack.push(l);
-                    stack.push(r);
+                case Link(var l, var r, _, _) -> current = l.isEmpty() ? r : l;
+                case Proxy(var xs) -> {
+                    return xs.headMaybe();
+                }
+                case Leaf<A> lf -> {
+                    return lf.length() == 0 ? Maybe.none() : Maybe.of(lf.get(0));
                 }
-                case Proxy(var xs) -> len += xs.length();
             }
         }
-        return len;
+    }
+
+    /**
+     * O(1) - returns the number of elements in this chain ({@link Link}
+     * nodes cache the size of their subtree).
+     */
+    default int length() {
+        return switch (this) {
+            case Empty<A> _ -> 0;
+            case Link(_, _, var len, _) -> len;
+            case Proxy(var xs) -> xs.length();
+            case Leaf<A> lf -> lf.elems.length;
+        };
     }
 
     /**
@@ -120,31 +322,229 @@ public sealed interface VChain<A> extends Iterable<A> {
      * the predicate {@code f}.
      */
     default boolean exists(Function<A, Boolean> f) {
-        return switch (this) {
-            case Empty<A> _ -> false;
-            case Link(var l, var r) -> l.exists(f) || r.exists(f);
-            case Proxy(var xs) -> xs.anyMatch(f::apply);
-        };
+        for (A x : this) {
+            if (f.apply(x)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * Returns a new chain with {@code f} applied to every element
-     * in {@code this}.
+     * in {@code this} (the result is balanced, see {@link #rebalance()}).
      */
     default <B> VChain<B> map(Function<A, B> f) {
+        var leaves = leaves(this);
+        var mapped = new ArrayList<VChain<B>>(leaves.size());
+        for (var leaf : leaves) {
+            mapped.add(switch (leaf) {
+                case Proxy(var xs) -> proxy(xs.map(f));
+                default -> {
+                    var elems = new Object[leaf.length()];
+                    var i = 0;
+                    for (var x : leaf) {
+                        elems[i++] = f.apply(x);
+                    }
+                    yield new Leaf<B>(elems);
+                }
+            });
+        }
+        return fromLeaves(mapped);
+    }
+
+    /**
+     * Like {@link #map}, but runs on the common {@link ForkJoinPool};
+     * see {@link #parallelMap(Function, ForkJoinPool)}.
+     */
+    default <B> VChain<B> parallelMap(Function<A, B> f) {
+        return parallelMap(f, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a new chain with {@code f} applied to every element in
+     * {@code this}, forking at {@link Link} nodes (and splitting large array
+     * leaves) above a size threshold and running the pieces on
+     * {@code pool}. Worthwhile when {@code f} is CPU heavy; {@code f} must
+     * be safe to call from several threads at once.
+     */
+    default <B> VChain<B> parallelMap(Function<A, B> f, ForkJoinPool pool) {
+        return pool.invoke(new ChainTasks.MapTask<>(this, 0, length(), f));
+    }
+
+    /** See {@link #parallelFold(Object, BiFunction, BinaryOperator, ForkJoinPool)}. */
+    default <B> B parallelFold(B identity, BiFunction<B, A, B> accumulate, BinaryOperator<B> combine) {
+        return parallelFold(identity, accumulate, combine, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Folds the elements of this chain in parallel (on {@code pool}): each
+     * piece is folded left to right with {@code accumulate} starting from
+     * {@code identity} and the partial results are merged (in order) with
+     * {@code combine}. As with {@link java.util.stream.Stream#reduce}, the
+     * {@code combine} function must be associative and {@code identity} must
+     * be an identity for it.
+     */
+    default <B> B parallelFold(B identity, BiFunction<B, A, B> accumulate,
+                               BinaryOperator<B> combine, ForkJoinPool pool) {
+        return pool.invoke(new ChainTasks.FoldTask<>(this, 0, length(), identity, accumulate, combine));
+    }
+
+    /** See {@link #parallelExists(Function, ForkJoinPool)}. */
+    default boolean parallelExists(Function<A, Boolean> f) {
+        return parallelExists(f, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * A parallel {@link #exists}; once some piece finds an element satisfying
+     * {@code f}, the others stop early.
+     */
+    default boolean parallelExists(Function<A, Boolean> f, ForkJoinPool pool) {
+        return pool.invoke(new ChainTasks.ExistsTask<>(this, 0, length(), f, new AtomicBoolean()));
+    }
+
+    /**
+     * O(n) - returns a chain with the same elements as {@code this}, stored
+     * contiguously in a single array-backed {@link Leaf}. Worth doing for
+     * chains that are built once and then read (iterated) many times.
+     */
+    default VChain<A> compact() {
         return switch (this) {
-            case Empty<A> _ -> VChain.empty();
-            case Link(var l, var r) -> VChain.link(l.map(f), r.map(f));
-            case Proxy(var xs) -> VChain.proxy(xs.map(f));
+            case Leaf<A> _ -> this;
+            case VChain<A> c when c.isEmpty() -> empty();
+            default -> Events.chainRestructure("VChain.compact",
+                    () -> new Leaf<A>(toArray(this)), VChain::length);
         };
     }
 
-    default VList<A> toList() {
-        var buf = new java.util.ArrayList<A>(length());
-        for (A x : this) {
-            buf.add(x);
+    /**
+     * O(n) - returns a chain with the same elements (and leaves) as
+     * {@code this}, but whose {@link Link}s form a balanced tree of depth
+     * ceil(log2(#leaves)).
+     */
+    default VChain<A> rebalance() {
+        if (depthOf(this) <= 1) {
+            return this;
         }
-        return VList.ofAll(buf);
+        return Events.chainRestructure("VChain.rebalance",
+                () -> fromLeaves(leaves(this)), VChain::length);
+    }
+
+    // helpers:
+
+    private static int depthOf(VChain<?> c) {
+        return c instanceof Link<?> lk ? lk.depth() : 0;
+    }
+
+    /** Collects the (non-empty) leaves of {@code c} in order, iteratively. */
+    private static <A> ArrayList<VChain<A>> leaves(VChain<A> c) {
+        var result = new ArrayList<VChain<A>>();
+        var stack = new ArrayDeque<VChain<A>>();
+        stack.push(c);
+        while (!stack.isEmpty()) {
+            switch (stack.pop()) {
+                case Empty<A> _ -> {
+                }
+                case Link(var l, var r, _, _) -> {
+                    stack.push(r);
+                    stack.push(l);
+                }
+                case VChain<A> leaf when leaf.isEmpty() -> {
+                }
+                case VChain<A> leaf -> result.add(leaf); // proxy or leaf
+            }
+        }
+        return result;
+    }
+
+    /**
+     * O(n) - element-wise comparison of two chains that neither allocates
+     * intermediate lists nor looks past the first difference (and chains
+     * of different lengths are rejected right away).
+     */
+    private static boolean sameElements(VChain<?> xs, VChain<?> ys) {
+        if (xs == ys) {
+            return true;
+        }
+        if (xs.length() != ys.length()) {
+            return false;
+        }
+        var it = ys.iterator();
+        for (var x : xs) {
+            if (!Objects.equals(x, it.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the {@link java.util.List#hashCode()} of the elements of
+     * {@code c}. Leaves cache their hash (see {@link VList#hashCode()}), so
+     * the hash of a chain is combined from the hashes of its leaves (in O(#
+     * leaves)) using: {@code h(xs ++ ys) = (h(xs) - 1) * 31^|ys| + h(ys)}.
+     */
+    private static int hashOf(VChain<?> c) {
+        var h = 1;
+        var stack = new ArrayDeque<VChain<?>>();
+        stack.push(c);
+        while (!stack.isEmpty()) {
+            switch (stack.pop()) {
+                case Link<?>(var l, var r, _, _) -> {
+                    stack.push(r);
+                    stack.push(l);
+                }
+                case VChain<?> leaf when leaf.isEmpty() -> {
+                }
+                case VChain<?> leaf -> h = (h - 1) * pow31(leaf.length()) + leaf.hashCode();
+            }
+        }
+        return h;
+    }
+
+    private static int pow31(int n) {
+        int result = 1;
+        int base = 31;
+        while (n > 0) { // (overflow is intended: all mod 2^32)
+            if ((n & 1) == 1) {
+                result *= base;
+            }
+            base *= base;
+            n >>= 1;
+        }
+        return result;
+    }
+
+    private static Object[] toArray(VChain<?> c) {
+        var result = new Object[c.length()];
+        var i = 0;
+        for (var x : c) {
+            result[i++] = x;
+        }
+        return result;
+    }
+
+    /** Links adjacent pieces pairwise, level by level (bottom up). */
+    private static <A> VChain<A> fromLeaves(ArrayList<VChain<A>> pieces) {
+        if (pieces.isEmpty()) {
+            return empty();
+        }
+        while (pieces.size() > 1) {
+            var next = new ArrayList<VChain<A>>((pieces.size() + 1) / 2);
+            for (int i = 0; i + 1 < pieces.size(); i += 2) {
+                next.add(link(pieces.get(i), pieces.get(i + 1)));
+            }
+            if (pieces.size() % 2 == 1) {
+                next.add(pieces.getLast());
+            }
+            pieces = next;
+        }
+        return pieces.getFirst();
+    }
+
+    @SuppressWarnings("unchecked") default VList<A> toList() {
+        return Events.chainRestructure("VChain.toList",
+                () -> VList.of((A[]) toArray(this)), VList::length);
     }
 
     default String mkString(String sep) {
@@ -165,64 +565,166 @@ public sealed interface VChain<A> extends Iterable<A> {
         return new ChainIter<>(this);
     }
 
+    /**
+     * Returns an iterator over the elements of this chain from last to
+     * first (e.g., for showing the last few entries of a large chain).
+     * <p>
+     * Note: {@link Proxy} leaves are walked backwards without being reversed,
+     * holding O(sqrt(leaf length)) of their elements at a time.
+     */
+    default Iterator<A> reverseIterator() {
+        return new ChainIter<>(this, true);
+    }
+
+    /** Iterates a chain front to back (or, if {@code reversed}, back to front). */
     final class ChainIter<A> implements Iterator<A> {
         private final Deque<VChain<A>> stack = new ArrayDeque<>();
+        private final boolean reversed;
         private Iterator<A> proxyIt = null;
 
+        // the current array-backed leaf (if any) and our position in it
+        private Object[] leafElems = null;
+        private int leafIdx = 0;
+
         public ChainIter(VChain<A> root) {
+            this(root, false);
+        }
+
+        public ChainIter(VChain<A> root, boolean reversed) {
+            this.reversed = reversed;
             stack.push(root);
         }
 
+        private boolean leafHasNext() {
+            return reversed ? leafIdx >= 0 : leafIdx < leafElems.length;
+        }
+
         @Override public boolean hasNext() {
+            if (leafElems != null && leafHasNext()) {
+                return true;
+            }
             if (proxyIt != null && proxyIt.hasNext()) {
                 return true;
             }
             proxyIt = null;
+            leafElems = null;
 
             while (!stack.isEmpty()) {
                 var cur = stack.pop();
+                if (Metrics.Enabled) {
+                    Metrics.record(Metrics.Counter.ChainSteps, 1);
+                }
                 switch (cur) {
                     case Empty<A> _ -> {
                     }
-                    case Link(var l, var r) -> {
-                        stack.push(r);
-                        stack.push(l);
+                    case Link(var l, var r, _, _) -> {
+                        stack.push(reversed ? l : r);
+                        stack.push(reversed ? r : l);
                     }
                     case Proxy(var xs) -> {
-                        proxyIt = xs.iterator();
+                        proxyIt = reversed ? xs.reverseIterator() : xs.iterator();
                         if (proxyIt.hasNext()) {
                             return true;
                         } else {
                             proxyIt = null;
                         }
                     }
+                    case Leaf<A> lf -> {
+                        if (lf.elems.length > 0) {
+                            leafElems = lf.elems;
+                            leafIdx = reversed ? lf.elems.length - 1 : 0;
+                            return true;
+                        }
+                    }
                 }
             }
             return false;
         }
 
-        @Override public A next() {
+        @SuppressWarnings("unchecked") @Override public A next() {
             if (!hasNext()) {
                 throw new NoSuchElementException();
             }
-            // by contract: proxyIt is not null and has a next element
-            return proxyIt.next();
+            // by contract: either leafElems or proxyIt has a next element
+            if (leafElems == null) {
+                return proxyIt.next();
+            }
+            var result = (A) leafElems[leafIdx];
+            leafIdx += reversed ? -1 : 1;
+            return result;
+        }
+    }
+
+    /**
+     * Accumulates elements into large array-backed leaves and produces a
+     * balanced chain of them in {@link #build()}. A builder can keep
+     * accepting elements after a call to {@code build()}; previously built
+     * chains are unaffected.
+     */
+    final class Builder<A> {
+        private static final int LeafSize = 512;
+
+        private final ArrayList<VChain<A>> leaves = new ArrayList<>();
+        private Object[] buf = new Object[16];
+        private int count = 0;
+
+        private Builder() {}
+
+        public Builder<A> add(A x) {
+            if (count == buf.length) {
+                if (count == LeafSize) {
+                    leaves.add(new Leaf<>(buf));
+                    buf = new Object[LeafSize];
+                    count = 0;
+                } else {
+                    buf = Arrays.copyOf(buf, Math.min(LeafSize, count * 2));
+                }
+            }
+            buf[count++] = x;
+            return this;
+        }
+
+        public Builder<A> addAll(Iterable<? extends A> xs) {
+            for (A x : xs) {
+                add(x);
+            }
+            return this;
+        }
+
+        /** O(#leaves) - returns a (balanced) chain of everything added so far. */
+        public VChain<A> build() {
+            var pieces = new ArrayList<>(leaves);
+            if (count > 0) {
+                pieces.add(new Leaf<>(Arrays.copyOf(buf, count)));
+            }
+            return fromLeaves(pieces);
         }
     }
 
     // static factory methods
 
+    static <A> Builder<A> builder() {
+        return new Builder<>();
+    }
+
     static <A> VChain<A> of(A x) {
-        return proxy(VList.of(x));
+        return new Leaf<>(new Object[]{x});
     }
 
     @SafeVarargs static <A> VChain<A> of(A... xs) {
-        return from(java.util.Arrays.asList(xs));
+        return xs.length == 0 ? empty() : new Leaf<>(Arrays.copyOf(xs, xs.length, Object[].class));
     }
 
+    /**
+     * Returns a chain holding {@code items}. A {@link VList} is wrapped as is
+     * (in a {@link Proxy}); anything else is copied into an array-backed
+     * {@link Leaf}.
+     */
     static <A> VChain<A> from(Iterable<A> items) {
         return switch (items) {
             case Collection<?> c when c.isEmpty() -> VChain.empty();
+            case Collection<?> c                  -> new Leaf<>(c.toArray());
+            case VList<A> xs                      -> proxy(xs);
             default                               -> proxy(VList.ofAll(items));
         };
     }
@@ -235,6 +737,7 @@ public sealed interface VChain<A> extends Iterable<A> {
         return new VChain.Proxy<>(list);
     }
 
+    /** O(1) - links {@code l} and {@code r} as is (without any rebalancing). */
     static <A> VChain<A> link(VChain<A> l, VChain<A> r) {
         return new VChain.Link<>(l, r);
     }
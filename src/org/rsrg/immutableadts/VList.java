@@ -4,6 +4,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -13,6 +14,10 @@ public final class VList<A> implements Iterable<A> {
     private final AlgebraicLst<A> lst;
     private final int size;
 
+    // lazily computed (racy single-check, like String::hashCode); 0 means
+    // "not yet computed"
+    private int hash;
+
     private VList(AlgebraicLst<A> lst, int size) {
         this.lst = lst;
         this.size = size;
@@ -30,6 +35,11 @@ public final class VList<A> implements Iterable<A> {
         return new VList<>(res, ts.length);
     }
 
+    /** O(1) - wraps the {@code size} cells of {@code lst}. */
+    static <T> VList<T> ofCells(AlgebraicLst<T> lst, int size) {
+        return new VList<>(lst, size);
+    }
+
     public static <T> VList<T> ofAll(Iterable<T> items) {
         var buffer = new ArrayList<T>();
         for (var item : items) {
@@ -49,8 +59,11 @@ public final class VList<A> implements Iterable<A> {
      * the end of this list. Should be stack safe (avoids recursion)
      */
     public VList<A> append(VList<A> ys) {
-        var newLst = append(lst, ys.lst);
-        return new VList<>(newLst, size + ys.size);
+        if (Metrics.Enabled) {
+            Metrics.record(Metrics.Counter.ListAppends, 1);
+        }
+        return Events.listAppend(size, ys.size,
+                () -> new VList<>(append(lst, ys.lst), size + ys.size));
     }
 
     private AlgebraicLst<A> append(AlgebraicLst<A> xs, AlgebraicLst<A> ys) {
@@ -62,6 +75,9 @@ public final class VList<A> implements Iterable<A> {
             buffer.add(xs.head());
             xs = xs.tail();
         }
+        if (Metrics.Enabled) {
+            Metrics.record(Metrics.Counter.ListAppendCopies, buffer.size());
+        }
         var result = ys;
         for (int i = buffer.size() - 1; i >= 0; i--) {
             result = AlgebraicLst.cons(buffer.get(i), result);
@@ -183,6 +199,67 @@ public final class VList<A> implements Iterable<A> {
     }
 
 
+    /** O(n) - returns the last element of this list, if any, walking its cells. */
+    Maybe<A> lastMaybe() {
+        if (size == 0) {
+            return Maybe.none();
+        }
+        var current = lst;
+        while (current instanceof AlgebraicLst.NonEmpty(var x, var rest)) {
+            if (rest._null()) {
+                return Maybe.of(x);
+            }
+            current = rest;
+        }
+        throw new IllegalStateException("inconsistent list length");
+    }
+
+    /**
+     * O(n) in total - iterates this list from last to first without
+     * reversing it: one pass remembers every k-th cell (k about sqrt n), and
+     * the blocks between them are then buffered one at a time, last first,
+     * so at most O(sqrt n) references are held.
+     */
+    Iterator<A> reverseIterator() {
+        var block = Math.max(1, (int) Math.ceil(Math.sqrt(size)));
+        var starts = new ArrayList<AlgebraicLst<A>>(size / block + 1);
+        var current = lst;
+        for (var i = 0; !current._null(); i++) {
+            if (i % block == 0) {
+                starts.add(current);
+            }
+            current = current.tail();
+        }
+        return new Iterator<>() {
+            private final Object[] buffer = new Object[Math.min(block, size)];
+            private int nextBlock = starts.size() - 1;
+            private int idx = -1;
+
+            @Override public boolean hasNext() {
+                return idx >= 0 || nextBlock >= 0;
+            }
+
+            @SuppressWarnings("unchecked") @Override public A next() {
+                if (idx < 0) {
+                    if (nextBlock < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    var cell = starts.get(nextBlock);
+                    var n = Math.min(block, size - nextBlock * block);
+                    for (var i = 0; i < n; i++) {
+                        buffer[i] = cell.head();
+                        cell = cell.tail();
+                    }
+                    idx = n - 1;
+                    nextBlock--;
+                }
+                var result = (A) buffer[idx];
+                buffer[idx--] = null;
+                return result;
+            }
+        };
+    }
+
     public String mkString(String delim)  {
         return mkString("", delim, "");
     }
@@ -201,15 +278,32 @@ public final class VList<A> implements Iterable<A> {
         return sb.append(right).toString();
     }
 
+    /**
+     * O(n) - structural equality. Iterative (so stack safe for long lists)
+     * and stops as soon as both lists share the same suffix cell, which makes
+     * comparing a list against one of its derived versions cheap.
+     */
     @Override public boolean equals(Object o) {
         return switch (o) {
-            case VList<?> other -> this.size == other.size && this.lst.equals(other.lst);
+            case VList<?> other when this == other -> true;
+            case VList<?> other -> this.size == other.size
+                    && (hash == 0 || other.hash == 0 || hash == other.hash)
+                    && AlgebraicLst.equalCells(this.lst, other.lst);
             default -> false;
         };
     }
 
+    /**
+     * O(n) on first call, O(1) afterwards - the hash is computed
+     * the same way {@link java.util.List#hashCode()} is and cached.
+     */
     @Override public int hashCode() {
-        return 31 * lst.hashCode() + size;
+        var h = hash;
+        if (h == 0) {
+            h = AlgebraicLst.hashCells(lst);
+            hash = h;
+        }
+        return h;
     }
 
     /**
@@ -228,6 +322,15 @@ public final class VList<A> implements Iterable<A> {
 
         record NonEmpty<A>(A head,
                            AlgebraicLst<A> rest) implements AlgebraicLst<A> {
+
+            // the derived record versions of these recurse once per cell
+            @Override public boolean equals(Object o) {
+                return o instanceof AlgebraicLst<?> other && equalCells(this, other);
+            }
+
+            @Override public int hashCode() {
+                return hashCells(this);
+            }
         }
 
         // "smart constructors" for the two types of lists
@@ -243,6 +346,34 @@ public final class VList<A> implements Iterable<A> {
             return this instanceof AlgebraicLst.Empty<A>;
         }
 
+        /**
+         * Walks {@code xs} and {@code ys} in lockstep; returns early once
+         * both point at the same (shared) suffix.
+         */
+        static boolean equalCells(AlgebraicLst<?> xs, AlgebraicLst<?> ys) {
+            while (xs != ys) {
+                if (!(xs instanceof NonEmpty<?>(var x, var xt)
+                        && ys instanceof NonEmpty<?>(var y, var yt))) {
+                    return false; // exactly one of the two ran out
+                }
+                if (!Objects.equals(x, y)) {
+                    return false;
+                }
+                xs = xt;
+                ys = yt;
+            }
+            return true;
+        }
+
+        static int hashCells(AlgebraicLst<?> xs) {
+            int h = 1;
+            while (xs instanceof NonEmpty<?>(var x, var rest)) {
+                h = 31 * h + Objects.hashCode(x);
+                xs = rest;
+            }
+            return h;
+        }
+
         default A head() {
             return switch (this) {
                 case NonEmpty(var head, _) -> head;
@@ -1,15 +1,28 @@
 package org.rsrg.immutableadts;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 import static org.rsrg.immutableadts.Maybe.*;
 
-public final class VTreeMap<K, V> {
+public final class VTreeMap<K, V> implements Iterable<Pair<K, V>> {
 
     private final int size;
     private final BalancedBst<Pair<K, V>> bst;
     private final Comparator<K> keyOrder;
 
+    // estimated size of the Pair each node holds (a 12 byte header and two
+    // compressed references, padded to 8 bytes)
+    private static final int PairBytes = 24;
+
+    // lazily computed (racy single-check, as in VList); 0 means "not yet
+    // computed"
+    private int hash;
+
     private VTreeMap(Comparator<K> keyOrder, BalancedBst<Pair<K, V>> bst,
                      int size) {
         this.keyOrder = keyOrder;
@@ -30,6 +43,32 @@ public final class VTreeMap<K, V> {
         return empty(Comparable::compareTo);
     }
 
+    /**
+     * O(n) - builds a map from {@code kvs}, whose keys must be strictly
+     * increasing w.r.t. {@code o} (this isn't checked).
+     */
+    static <A, B> VTreeMap<A, B> ofSorted(Comparator<A> o, List<Pair<A, B>> kvs) {
+        //@formatter:off
+        return new VTreeMap<>(o,
+                BalancedBst.ofSorted((p1, p2) ->
+                        o.compare(p1.first(), p2.first()), kvs),
+                kvs.size());
+        //@formatter:on
+    }
+
+    /**
+     * O(1) - wraps the tree {@code root} (holding {@code size} bindings),
+     * whose keys must be ordered by {@code o} (this isn't checked).
+     */
+    static <A, B> VTreeMap<A, B> ofRoot(Comparator<A> o, BalancedBst.AlgebraicTr<Pair<A, B>> root, int size) {
+        //@formatter:off
+        return new VTreeMap<>(o,
+                BalancedBst.ofRep((p1, p2) ->
+                        o.compare(p1.first(), p2.first()), root),
+                size);
+        //@formatter:on
+    }
+
     public VTreeMap<K, V> insert(K key, V val) {
         var toAdd = Pair.of(key, val);
         var updatedRep = bst;
@@ -50,6 +89,54 @@ public final class VTreeMap<K, V> {
         return new VTreeMap<>(keyOrder, updatedRep, updatedSz);
     }
 
+    /**
+     * O(log n) - removes the binding for {@code key} from this map (if
+     * there is one).
+     */
+    public VTreeMap<K, V> remove(K key) {
+        if (!member(key)) {
+            return this;
+        }
+        return new VTreeMap<>(keyOrder, bst.delete(Pair.of(key, null)), size - 1);
+    }
+
+    /**
+     * O(m log(n/m + 1)) - adds all bindings in {@code kvs} to this map
+     * (replacing existing bindings for the same keys; if {@code kvs} binds a
+     * key more than once, the last binding wins -- just as if the pairs
+     * were {@link #insert}ed one after the other).
+     * <p>
+     * The batch is sorted and then merged into the underlying tree in one
+     * pass, see {@link BalancedBst#insertAll}.
+     */
+    public VTreeMap<K, V> insertAll(Iterable<Pair<K, V>> kvs) {
+        return bulk("VTreeMap.insertAll", () -> {
+            var result = bst.insertAll(kvs, true);
+            return new VTreeMap<>(keyOrder, result.first(), size + result.second());
+        });
+    }
+
+    /**
+     * O(m log(n/m + 1)) - removes the bindings for all of {@code keys}
+     * from this map in a single merged pass over the underlying tree.
+     */
+    public VTreeMap<K, V> removeAll(Iterable<K> keys) {
+        return bulk("VTreeMap.removeAll", () -> {
+            var probes = new ArrayList<Pair<K, V>>();
+            for (var k : keys) {
+                // dummy (null) values -- again, the bst only compares on keys
+                probes.add(Pair.of(k, null));
+            }
+            var result = bst.deleteAll(probes);
+            return new VTreeMap<>(keyOrder, result.first(), size - result.second());
+        });
+    }
+
+    // runs a bulk update of this map as a JFR event (see Events)
+    private VTreeMap<K, V> bulk(String operation, Supplier<VTreeMap<K, V>> body) {
+        return Events.treeBulkOperation(operation, size, body, m -> m.size);
+    }
+
     /**
      * O(log n) - return true if {@code key} is present in this map;
      * false otherwise.
@@ -83,11 +170,83 @@ public final class VTreeMap<K, V> {
         return res;
     }
 
+    /** Iterates over the bindings of this map in ascending key order. */
+    @Override public Iterator<Pair<K, V>> iterator() {
+        return bst.iterator();
+    }
+
+    /**
+     * O(n) - returns the number of nodes on the longest path from the root
+     * of the underlying tree to a leaf.
+     */
+    public int height() {
+        return bst.height();
+    }
+
+    /**
+     * O(n) - measures the shape of the underlying tree and checks its
+     * balance invariants in a single pass, see {@link TreeStats}.
+     */
+    public TreeStats stats() {
+        return bst.stats(PairBytes);
+    }
+
     /** O(1) - returns the number of key value pairs in this map. */
     public int size() {
         return size;
     }
 
+    /** O(1) - returns the order on keys this map was created with. */
+    Comparator<K> keyOrder() {
+        return keyOrder;
+    }
+
+    /** O(1) - returns the root of the underlying tree. */
+    BalancedBst.AlgebraicTr<Pair<K, V>> root() {
+        return bst.rep;
+    }
+
+    /**
+     * O(n) - true only if {@code o} is a map holding equal bindings in the
+     * same key order. O(1) for maps sharing their tree, such as those
+     * {@link Interner#intern interned} by the same interner.
+     */
+    @Override public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof VTreeMap<?, ?> other) || size != other.size
+                || (hash != 0 && other.hash != 0 && hash != other.hash)) {
+            return false;
+        }
+        if ((Object) bst.rep == other.bst.rep) {
+            return true;
+        }
+        var it = other.iterator();
+        for (var kv : this) {
+            if (!kv.equals(it.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * O(n) on first call, O(1) afterwards - the sum of the bindings' hashes,
+     * each {@code hash(key) ^ hash(value)} (as for
+     * {@link java.util.Map#hashCode()}).
+     */
+    @Override public int hashCode() {
+        var h = hash;
+        if (h == 0) {
+            for (var kv : this) {
+                h += Objects.hashCode(kv.first()) ^ Objects.hashCode(kv.second());
+            }
+            hash = h;
+        }
+        return h;
+    }
+
     @Override public String toString() {
         var sb = new StringBuilder("[");
         var first = true;
@@ -0,0 +1,348 @@
+package org.rsrg.immutableadts;
+
+import org.rsrg.immutableadts.BalancedBst.AlgebraicTr;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of successive versions of a {@link VTreeMap}.
+ * <p>
+ * Consecutive versions of a map share all but the O(log n) nodes on the
+ * paths an update copied, so rather than dumping every version in full,
+ * {@link #commit} appends just the tree nodes that no earlier commit wrote,
+ * followed by a commit record naming the version's root:
+ * <pre>
+ *   int   magic    (0x564c4f47, "VLOG")
+ *   byte  version  (currently 1)
+ *   then any number of records, each
+ *     byte type, int length, length bytes of payload, int CRC-32
+ *   where the checksum covers type, length and payload, and the payload of
+ *     a node   (type 1) is  int lvl, int left, int right, key, value
+ *     a commit (type 2) is  int root, int size
+ * </pre>
+ * Nodes get ids 1, 2, 3, ... in the order they are written (0 stands for the
+ * empty tree) and only ever refer back to nodes written before them, so
+ * replaying the log ({@link #replay}, {@link #open}) rebuilds every committed
+ * version -- sharing structure exactly as the originals did -- in a single
+ * pass. Replay stops at the first record that is incomplete or malformed
+ * (say, one torn by a crash, or junk written past it): that record and
+ * everything after it, back to the last commit before it, are ignored.
+ * <p>
+ * To recognize nodes it has already written, a log remembers (and keeps
+ * reachable) every node it wrote; to start over from the current version
+ * only, {@link #create} a new log and commit that version to it.
+ * <p>
+ * Logs are not thread safe.
+ *
+ * @param <K> the type of keys.
+ * @param <V> the type of values.
+ */
+public final class VTreeMapLog<K, V> implements AutoCloseable {
+
+    static final int Magic = 0x564c4f47;
+    static final byte Version = 1;
+    static final int HeaderSize = 5;
+
+    static final byte NodeRecord = 1;
+    static final byte CommitRecord = 2;
+
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    private final DataOutputStream payloadOut = new DataOutputStream(payload);
+    private final CRC32 crc = new CRC32();
+    private final ElementCodec<K> keys;
+    private final ElementCodec<V> values;
+    private final IdentityHashMap<AlgebraicTr.Node<Pair<K, V>>, Integer> ids;
+    private final List<VTreeMap<K, V>> versions;
+    private int nextId;
+
+    private VTreeMapLog(FileChannel channel, ElementCodec<K> keys, ElementCodec<V> values,
+                        Replayed<K, V> replayed) {
+        this.channel = channel;
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        this.keys = keys;
+        this.values = values;
+        this.ids = new IdentityHashMap<>();
+        for (var i = 1; i < replayed.nodes.size(); i++) {
+            ids.put(replayed.nodes.get(i), i);
+        }
+        this.nextId = Math.max(1, replayed.nodes.size());
+        this.versions = new ArrayList<>(replayed.versions);
+    }
+
+    /** Creates (or truncates) the log at {@code path}. */
+    public static <K, V> VTreeMapLog<K, V> create(Path path, ElementCodec<K> keys,
+                                                  ElementCodec<V> values) throws IOException {
+        var ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            var log = new VTreeMapLog<>(ch, keys, values, new Replayed<>(List.of(), List.of(), 0));
+            log.out.writeInt(Magic);
+            log.out.writeByte(Version);
+            log.sync();
+            return log;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Replays the log at {@code path} and opens it for further commits,
+     * dropping anything after its last commit; {@code o} must be the order
+     * the logged maps were sorted by.
+     *
+     * @throws IOException if the file is not such a log.
+     */
+    public static <K, V> VTreeMapLog<K, V> open(Path path, Comparator<K> o, ElementCodec<K> keys,
+                                                ElementCodec<V> values) throws IOException {
+        var replayed = replay(path, o, keys, values, true);
+        var ch = FileChannel.open(path, StandardOpenOption.WRITE);
+        try {
+            ch.truncate(replayed.committedBytes);
+            ch.position(replayed.committedBytes);
+            return new VTreeMapLog<>(ch, keys, values, replayed);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * O(size of the log) - returns every version committed to the log at
+     * {@code path}, oldest first; {@code o} must be the order the logged
+     * maps were sorted by.
+     *
+     * @throws IOException if the file is not such a log.
+     */
+    public static <K, V> VList<VTreeMap<K, V>> replay(Path path, Comparator<K> o, ElementCodec<K> keys,
+                                                     ElementCodec<V> values) throws IOException {
+        return VList.ofAll(replay(path, o, keys, values, false).versions);
+    }
+
+    /** Returns the versions committed so far, oldest first. */
+    public VList<VTreeMap<K, V>> versions() {
+        return VList.ofAll(versions);
+    }
+
+    /**
+     * O(k) - appends the k nodes of {@code m} that aren't in the log yet and
+     * a commit record for {@code m}, then forces them to disk; returns k.
+     */
+    public int commit(VTreeMap<K, V> m) throws IOException {
+        var before = nextId;
+        var root = write(m.root());
+        payloadOut.writeInt(root);
+        payloadOut.writeInt(m.size());
+        writeRecord(CommitRecord);
+        sync();
+        versions.add(m);
+        return nextId - before;
+    }
+
+    @Override public void close() throws IOException {
+        try (channel) {
+            out.flush();
+        }
+    }
+
+    // helpers:
+
+    // writes the new nodes of t (children first) and returns t's id; the
+    // recursion stops at nodes already written, so it only visits the new
+    // ones and their (at most two) known children each
+    private int write(AlgebraicTr<Pair<K, V>> t) throws IOException {
+        if (!(t instanceof AlgebraicTr.Node<Pair<K, V>> n)) {
+            return 0;
+        }
+        var known = ids.get(n);
+        if (known != null) {
+            return known;
+        }
+        var left = write(n.left());
+        var right = write(n.right());
+        payloadOut.writeInt(n.lvl());
+        payloadOut.writeInt(left);
+        payloadOut.writeInt(right);
+        keys.write(payloadOut, n.key().first());
+        values.write(payloadOut, n.key().second());
+        writeRecord(NodeRecord);
+        var id = nextId++;
+        ids.put(n, id);
+        return id;
+    }
+
+    // frames and writes the record in payload (and clears it)
+    private void writeRecord(byte type) throws IOException {
+        payloadOut.flush();
+        var frame = ByteBuffer.allocate(5).put(type).putInt(payload.size()).array();
+        crc.reset();
+        crc.update(frame);
+        crc.update(payload.toByteArray());
+        out.write(frame);
+        payload.writeTo(out);
+        out.writeInt((int) crc.getValue());
+        payload.reset();
+    }
+
+    private void sync() throws IOException {
+        out.flush();
+        channel.force(false);
+    }
+
+    private record Replayed<K, V>(List<AlgebraicTr.Node<Pair<K, V>>> nodes,
+                                  List<VTreeMap<K, V>> versions, long committedBytes) {}
+
+    private static <K, V> Replayed<K, V> replay(Path path, Comparator<K> o, ElementCodec<K> keys,
+                                                ElementCodec<V> values, boolean keepNodes) throws IOException {
+        try (var counting = new CountingInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            var in = new DataInputStream(counting);
+            try {
+                if (in.readInt() != Magic) {
+                    throw new IOException(path + " is not a map log (bad magic number)");
+                }
+                var version = in.readByte();
+                if (version < 1 || version > Version) {
+                    throw new IOException("unsupported format version " + version);
+                }
+            } catch (EOFException e) {
+                throw new IOException(path + " is not a map log (no header)", e);
+            }
+            // index 0 is the empty tree
+            var nodes = new ArrayList<AlgebraicTr<Pair<K, V>>>();
+            nodes.add(AlgebraicTr.empty());
+            var versions = new ArrayList<VTreeMap<K, V>>();
+            var committedNodes = 1;
+            var committedBytes = counting.read;
+            var crc = new CRC32();
+            var fileSize = Files.size(path);
+            while (true) {
+                // a record that can't be read in full, or whose checksum or
+                // contents are off, ends the log
+                byte[] body;
+                int type;
+                try {
+                    type = in.read();
+                    if (type == -1) {
+                        break;
+                    }
+                    var length = in.readInt();
+                    if (length < 0 || length > fileSize - counting.read) {
+                        break;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                    var checksum = in.readInt();
+                    crc.reset();
+                    crc.update(ByteBuffer.allocate(5).put((byte) type).putInt(length).array());
+                    crc.update(body);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    var record = new DataInputStream(new ByteArrayInputStream(body));
+                    switch (type) {
+                        case NodeRecord -> {
+                            var lvl = record.readInt();
+                            var left = nodes.get(checkId(record.readInt(), nodes.size()));
+                            var right = nodes.get(checkId(record.readInt(), nodes.size()));
+                            var k = keys.read(record);
+                            var v = values.read(record);
+                            checkConsumed(record);
+                            nodes.add(AlgebraicTr.node(lvl, left, Pair.of(k, v), right));
+                        }
+                        case CommitRecord -> {
+                            var root = nodes.get(checkId(record.readInt(), nodes.size()));
+                            var size = record.readInt();
+                            checkConsumed(record);
+                            if (size < 0) {
+                                throw new IOException("negative map size: " + size);
+                            }
+                            versions.add(VTreeMap.ofRoot(o, root, size));
+                            committedNodes = nodes.size();
+                            committedBytes = counting.read;
+                        }
+                        default -> throw new IOException("unknown record type " + type);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    break;
+                }
+            }
+            var kept = new ArrayList<AlgebraicTr.Node<Pair<K, V>>>();
+            if (keepNodes) {
+                kept.add(null);
+                for (var i = 1; i < committedNodes; i++) {
+                    kept.add((AlgebraicTr.Node<Pair<K, V>>) nodes.get(i));
+                }
+            }
+            return new Replayed<>(kept, versions, committedBytes);
+        }
+    }
+
+    private static void checkConsumed(DataInputStream record) throws IOException {
+        if (record.available() > 0) {
+            throw new IOException("trailing bytes in record");
+        }
+    }
+
+    private static int checkId(int id, int nextId) throws IOException {
+        if (id < 0 || id >= nextId) {
+            throw new IOException("reference to unknown node " + id);
+        }
+        return id;
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long read = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override public int read() throws IOException {
+            var b = in.read();
+            if (b != -1) {
+                read++;
+            }
+            return b;
+        }
+
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            var n = in.read(b, off, len);
+            if (n > 0) {
+                read += n;
+            }
+            return n;
+        }
+
+        @Override public long skip(long n) throws IOException {
+            var skipped = in.skip(n);
+            read += skipped;
+            return skipped;
+        }
+    }
+}
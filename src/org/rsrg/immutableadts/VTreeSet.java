@@ -2,6 +2,8 @@ package org.rsrg.immutableadts;
 
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
 
 public final class VTreeSet<A> implements Iterable<A> {
 
@@ -9,6 +11,10 @@ public final class VTreeSet<A> implements Iterable<A> {
     private final BalancedBst<A> bst;
     private final Comparator<A> keyOrder;
 
+    // lazily computed (racy single-check, as in VList); 0 means "not yet
+    // computed"
+    private int hash;
+
     private VTreeSet(Comparator<A> keyOrder, BalancedBst<A> bst, int size) {
         this.keyOrder = keyOrder;
         this.bst = bst;
@@ -23,6 +29,22 @@ public final class VTreeSet<A> implements Iterable<A> {
         return empty(Comparable::compareTo);
     }
 
+    /**
+     * O(n) - builds a set from {@code items}, which must be strictly
+     * increasing w.r.t. {@code o} (this isn't checked).
+     */
+    static <T> VTreeSet<T> ofSorted(Comparator<T> o, List<T> items) {
+        return new VTreeSet<>(o, BalancedBst.ofSorted(o, items), items.size());
+    }
+
+    /**
+     * O(1) - wraps the tree {@code root} (holding {@code size} items), which
+     * must be ordered by {@code o} (this isn't checked).
+     */
+    static <T> VTreeSet<T> ofRoot(Comparator<T> o, BalancedBst.AlgebraicTr<T> root, int size) {
+        return new VTreeSet<>(o, BalancedBst.ofRep(o, root), size);
+    }
+
     public static <T> VTreeSet<T> singleton(Comparator<T> o, T item) {
         return empty(o).insert(item);
     }
@@ -36,18 +58,44 @@ public final class VTreeSet<A> implements Iterable<A> {
      * present.
      */
     public VTreeSet<A> insert(A item) {
-        if (!bst.contains(item)) {
+        if (bst.contains(item)) {
             return this;
         }
         var updatedBst = this.bst.insert(item);
         return new VTreeSet<>(keyOrder, updatedBst, this.size + 1);
     }
 
+    /** O(log n) - returns true only if {@code item} is in this set. */
+    public boolean contains(A item) {
+        return bst.contains(item);
+    }
+
+    /**
+     * O(n) - returns the number of nodes on the longest path from the root
+     * of the underlying tree to a leaf.
+     */
+    public int height() {
+        return bst.height();
+    }
+
+    /**
+     * O(n) - measures the shape of the underlying tree and checks its
+     * balance invariants in a single pass, see {@link TreeStats}.
+     */
+    public TreeStats stats() {
+        return bst.stats(0);
+    }
+
     /** O(1) - returns the number of items in this set. */
     public int size() {
         return size;
     }
 
+    /** O(1) - returns the order on items this set was created with. */
+    Comparator<A> keyOrder() {
+        return keyOrder;
+    }
+
     /** O(log n) - removes {@code item} from this set if present. */
     public VTreeSet<A> remove(A item) {
         var updatedSize = this.size;
@@ -60,18 +108,43 @@ public final class VTreeSet<A> implements Iterable<A> {
     }
 
     /**
-     * (note) potential: O((n+m) * log(n+m)) - returns the union of sets
-     * {@code s} and {@code t}.
+     * O(m log(n/m + 1)) - adds all of {@code items} to this set (items
+     * already present are ignored). The items are sorted and then merged
+     * into the underlying tree in a single pass, see
+     * {@link BalancedBst#insertAll}.
+     */
+    public VTreeSet<A> addAll(Iterable<A> items) {
+        return bulk("VTreeSet.addAll", size, () -> {
+            var result = bst.insertAll(items, false);
+            return new VTreeSet<>(keyOrder, result.first(), size + result.second());
+        });
+    }
+
+    /**
+     * O(m log(n/m + 1)) - removes all of {@code items} from this set in a
+     * single merged pass over the underlying tree.
+     */
+    public VTreeSet<A> removeAll(Iterable<A> items) {
+        return bulk("VTreeSet.removeAll", size, () -> {
+            var result = bst.deleteAll(items);
+            return new VTreeSet<>(keyOrder, result.first(), size - result.second());
+        });
+    }
+
+    /**
+     * O(n + m) - returns the union of sets {@code s} and {@code t} (the
+     * elements are already sorted, so both are merged in via
+     * {@link #addAll} without re-inserting them one by one).
      */
     public VTreeSet<A> union(VTreeSet<A> s, VTreeSet<A> t) {
-        var combined = VTreeSet.empty(keyOrder);
-        for (var a : s) { // O(n log |s|) - or: O(n log n)
-            combined = combined.insert(a);
-        }
-        for (var a : t) { // O(m log |t| - |s|): or: O(m log (n + m))
-            combined = combined.insert(a);
-        }
-        return combined;
+        return bulk("VTreeSet.union", (long) s.size + t.size,
+                () -> VTreeSet.empty(keyOrder).addAll(s).addAll(t));
+    }
+
+    // runs a bulk operation on sets of inputSize elements as a JFR event
+    // (see Events)
+    private VTreeSet<A> bulk(String operation, long inputSize, Supplier<VTreeSet<A>> body) {
+        return Events.treeBulkOperation(operation, inputSize, body, s -> s.size);
     }
 
     @Override public Iterator<A> iterator() {
@@ -80,6 +153,52 @@ public final class VTreeSet<A> implements Iterable<A> {
 
     //public VTreeSet<A> foldl()
 
+    /** O(1) - returns the root of the underlying tree. */
+    BalancedBst.AlgebraicTr<A> root() {
+        return bst.rep;
+    }
+
+    /**
+     * O(n) - true only if {@code o} is a set holding equal items in the same
+     * order (sets sorted by different orders are compared in their own
+     * orders). O(1) for sets sharing their tree, such as those
+     * {@link Interner#intern interned} by the same interner.
+     */
+    @Override public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof VTreeSet<?> other) || size != other.size
+                || (hash != 0 && other.hash != 0 && hash != other.hash)) {
+            return false;
+        }
+        if (bst.rep == other.bst.rep) {
+            return true;
+        }
+        var it = other.iterator();
+        for (var x : this) {
+            if (!x.equals(it.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * O(n) on first call, O(1) afterwards - the sum of the items' hashes (as
+     * for {@link java.util.Set#hashCode()}).
+     */
+    @Override public int hashCode() {
+        var h = hash;
+        if (h == 0) {
+            for (var x : this) {
+                h += x.hashCode();
+            }
+            hash = h;
+        }
+        return h;
+    }
+
     @Override public String toString() {
         var sb = new StringBuilder("[");
         var first = true;
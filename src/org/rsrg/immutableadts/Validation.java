@@ -0,0 +1,176 @@
+package org.rsrg.immutableadts;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A validation either holds a value ({@link Valid}) or a non-empty chain of
+ * errors ({@link Invalid}).
+ * <p>
+ * Unlike {@link Result}, combining validations doesn't stop at the first
+ * failure: the errors of all invalid inputs are gathered, in order. Errors
+ * are kept in a {@link VChain} so that combining two invalid validations
+ * costs an (amortized) O(1) {@link VChain#concat} rather than a copy.
+ *
+ * @param <T> the type of the value.
+ * @param <E> the type of the errors.
+ */
+public sealed interface Validation<T, E> {
+
+    // factory methods:
+    static <T, E> Validation<T, E> valid(T t) {
+        return new Valid<>(t);
+    }
+
+    static <T, E> Validation<T, E> invalid(E e) {
+        return new Invalid<>(VChain.of(e));
+    }
+
+    /** @throws IllegalArgumentException if {@code errors} is empty. */
+    static <T, E> Validation<T, E> invalid(VChain<E> errors) {
+        return new Invalid<>(errors);
+    }
+
+    static <T, E> Validation<T, E> fromResult(Result<T, E> r) {
+        return switch (r) {
+            case Result.Ok(var t) -> valid(t);
+            case Result.Err(var e) -> invalid(e);
+        };
+    }
+
+    // instance methods:
+
+    default boolean isValid() {
+        return this instanceof Validation.Valid<T, E>;
+    }
+
+    default boolean isInvalid() {
+        return this instanceof Validation.Invalid<T, E>;
+    }
+
+    /**
+     * Returns the value stored (assuming, as a precondition, {@code this} is
+     * an instance of {@link Valid}).
+     *
+     * @throws IllegalArgumentException if this isn't a valid instance.
+     */
+    default T get() {
+        return switch (this) {
+            case Valid(var t) -> t;
+            case Invalid(_) -> throw new IllegalArgumentException("precondition violation");
+        };
+    }
+
+    /** Returns the errors stored (empty if {@code this} is valid). */
+    default VChain<E> getErrors() {
+        return switch (this) {
+            case Valid(_) -> VChain.empty();
+            case Invalid(var es) -> es;
+        };
+    }
+
+    default <U> Validation<U, E> map(Function<T, U> f) {
+        return switch (this) {
+            case Valid(var t) -> valid(f.apply(t));
+            case Invalid(var es) -> invalid(es);
+        };
+    }
+
+    /**
+     * O(1) - combines the values of {@code this} and {@code o} with
+     * {@code f} if both are valid; otherwise returns the errors of both
+     * (those of {@code this} first).
+     */
+    default <U, R> Validation<R, E> combine(Validation<U, E> o, BiFunction<T, U, R> f) {
+        return switch (this) {
+            case Valid(var t) -> switch (o) {
+                case Valid(var u) -> valid(f.apply(t, u));
+                case Invalid(var es) -> invalid(es);
+            };
+            case Invalid(var es) -> switch (o) {
+                case Valid(_) -> invalid(es);
+                case Invalid(var os) -> invalid(es.concat(os));
+            };
+        };
+    }
+
+    default Result<T, VChain<E>> toResult() {
+        return switch (this) {
+            case Valid(var t) -> Result.ok(t);
+            case Invalid(var es) -> Result.err(es);
+        };
+    }
+
+    // static/'companion' methods
+
+    /**
+     * O(n) - collects the values of {@code xs} into a list if all of them
+     * are valid; otherwise returns all of their errors, in order.
+     */
+    static <T, E> Validation<VList<T>, E> sequence(Iterable<Validation<T, E>> xs) {
+        return traverse(xs, Function.identity());
+    }
+
+    /**
+     * O(n) - applies {@code f} to each element of {@code xs}, returning
+     * either the list of results or every error produced.
+     * <p>
+     * Single errors (and other short error chains) are gathered into a
+     * {@link VChain.Builder}, which packs them into large leaves; only longer
+     * error chains are concatenated as is, so even millions of failures cost
+     * at most one small allocation each.
+     */
+    static <T, S, E> Validation<VList<S>, E> traverse(Iterable<T> xs, Function<T, Validation<S, E>> f) {
+        Objects.requireNonNull(f, "fn is null");
+        var values = new ArrayList<S>();
+        VChain<E> errors = VChain.empty();
+        VChain.Builder<E> pending = null; // recent single errors, if any
+        for (T x : xs) {
+            switch (f.apply(x)) {
+                case Valid(var s) -> {
+                    // values are of no use once there are errors
+                    if (values != null) {
+                        values.add(s);
+                    }
+                }
+                case Invalid(var es) -> {
+                    values = null;
+                    if (pending == null) {
+                        pending = VChain.builder();
+                    }
+                    if (es.length() <= 32) { // short ones are just copied
+                        pending.addAll(es);
+                    } else {
+                        errors = errors.concat(pending.build()).concat(es);
+                        pending = VChain.builder();
+                    }
+                }
+            }
+        }
+        return values != null ? valid(VList.ofAll(values)) : invalid(errors.concat(pending.build()));
+    }
+
+    /**
+     * O(n) - like {@link Result#traverse}, but returns every error produced
+     * by {@code f} rather than just the first.
+     */
+    static <T, S, E> Validation<VList<S>, E> traverseResults(Iterable<T> xs, Function<T, Result<S, E>> f) {
+        Objects.requireNonNull(f, "fn is null");
+        return traverse(xs, x -> fromResult(f.apply(x)));
+    }
+
+    // actual implementations:
+
+    record Valid<T, E>(T value) implements Validation<T, E> {
+    }
+
+    record Invalid<T, E>(VChain<E> errors) implements Validation<T, E> {
+        public Invalid {
+            if (errors.isEmpty()) {
+                throw new IllegalArgumentException("an invalid validation needs errors");
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class AtomicVTreeMapTests {
+
+    // rethrows the first failure of any worker (assertions included)
+    private static void runConcurrently(int threads, Runnable body) throws InterruptedException {
+        var failure = new AtomicReference<Throwable>();
+        Runnable guarded = () -> {
+            try {
+                body.run();
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        };
+        var workers = new ArrayList<Thread>();
+        for (var i = 0; i < threads; i++) {
+            workers.add(Thread.ofPlatform().start(guarded));
+        }
+        for (var w : workers) {
+            w.join();
+        }
+        if (failure.get() != null) {
+            Assertions.fail(failure.get());
+        }
+    }
+
+    @Test void snapshotsShouldBeUnaffectedByLaterWrites() {
+        var ref = AtomicVTreeMap.<Integer, String>empty();
+        ref.update(m -> m.insert(1, "one"));
+        var before = ref.snapshot();
+        ref.update(m -> m.insert(2, "two"));
+        Assertions.assertEquals(1, before.size());
+        Assertions.assertEquals(2, ref.snapshot().size());
+    }
+
+    @Test void computeShouldInsertUpdateAndRemove() {
+        var ref = AtomicVTreeMap.<String, Integer>empty();
+        Assertions.assertEquals(Maybe.of(1), ref.compute("a", (_, v) -> Maybe.of(v.getOrElse(0) + 1)));
+        Assertions.assertEquals(Maybe.of(2), ref.compute("a", (_, v) -> Maybe.of(v.getOrElse(0) + 1)));
+        Assertions.assertEquals(Maybe.none(), ref.compute("a", (_, _) -> Maybe.none()));
+        Assertions.assertEquals(0, ref.snapshot().size());
+    }
+
+    @Test void concurrentMergesShouldNotLoseUpdates() throws InterruptedException {
+        var ref = AtomicVTreeMap.<Integer, Integer>empty();
+        runConcurrently(4, () -> {
+            for (var i = 0; i < 2000; i++) {
+                ref.merge(i % 10, 1, Integer::sum);
+            }
+        });
+        var total = 0;
+        for (var kv : ref.snapshot().toList()) {
+            total += kv.second();
+        }
+        Assertions.assertEquals(8000, total);
+        Assertions.assertEquals(10, ref.snapshot().size());
+    }
+
+    @Test void batchedInsertsShouldAllBeApplied() throws InterruptedException {
+        var ref = AtomicVTreeMap.<Integer, String>empty();
+        var next = new java.util.concurrent.atomic.AtomicInteger();
+        runConcurrently(4, () -> {
+            for (var i = 0; i < 2000; i++) {
+                var k = next.getAndIncrement();
+                ref.insertBatched(k, "v" + k);
+                Assertions.assertEquals(Maybe.of("v" + k), ref.lookup(k));
+            }
+        });
+        Assertions.assertEquals(8000, ref.snapshot().size());
+    }
+
+    @Test void mergeShouldRejectNullsWithoutChangingTheMap() {
+        var ref = AtomicVTreeMap.<String, Integer>empty();
+        ref.merge("a", 1, Integer::sum);
+        Assertions.assertThrows(NullPointerException.class, () -> ref.merge("b", null, Integer::sum));
+        Assertions.assertThrows(NullPointerException.class, () -> ref.merge("a", 2, (_, _) -> null));
+        Assertions.assertEquals(Maybe.of(1), ref.lookup("a"));
+        Assertions.assertEquals(1, ref.snapshot().size());
+    }
+}
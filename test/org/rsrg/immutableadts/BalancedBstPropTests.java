@@ -87,6 +87,43 @@ public final class BalancedBstPropTests {
                 "In-order traversal should match expected sorted elements");
     }
 
+    @Property void bulkInsertionMatchesSequentialInsertion(@ForAll List<Integer> initial, @ForAll List<Integer> batch) {
+        var tree = BalancedBst.of(initial.toArray(new Integer[0]));
+        var sequential = tree;
+        for (var e : batch) {
+            sequential = sequential.insert(e);
+        }
+        var bulk = tree.insertAll(batch, false);
+
+        assertTrue(checkAA1AA2(bulk.first().rep), "AA1, AA2 invariants broken after insertAll");
+        assertTrue(checkAA3AA4(bulk.first().rep), "AA3, AA4 invariants broken after insertAll");
+        Assertions.assertEquals(inOrderTraversal(sequential), inOrderTraversal(bulk.first()));
+        Assertions.assertEquals(sequential.size() - tree.size(), bulk.second());
+    }
+
+    @Property void bulkDeletionMatchesSequentialDeletion(@ForAll List<Integer> initial, @ForAll List<Integer> batch) {
+        var tree = BalancedBst.of(initial.toArray(new Integer[0]));
+        var sequential = tree;
+        for (var e : batch) {
+            sequential = sequential.delete(e);
+        }
+        var bulk = tree.deleteAll(batch);
+
+        assertTrue(checkAA1AA2(bulk.first().rep), "AA1, AA2 invariants broken after deleteAll");
+        assertTrue(checkAA3AA4(bulk.first().rep), "AA3, AA4 invariants broken after deleteAll");
+        Assertions.assertEquals(inOrderTraversal(sequential), inOrderTraversal(bulk.first()));
+        Assertions.assertEquals(tree.size() - sequential.size(), bulk.second());
+    }
+
+    @Property void buildingFromSortedKeysYieldsBalancedTree(@ForAll List<Integer> elements) {
+        var sorted = new ArrayList<Integer>(new TreeSet<Integer>(elements));
+        var tree = BalancedBst.ofSorted(Integer::compareTo, sorted);
+
+        assertTrue(checkAA1AA2(tree.rep), "AA1, AA2 invariants broken");
+        assertTrue(checkAA3AA4(tree.rep), "AA3, AA4 invariants broken");
+        Assertions.assertEquals(sorted, inOrderTraversal(tree));
+    }
+
     // --- helpers: inOrderTraversal, checkAA1AA2, checkAA3AA4 ---
 
     private ArrayList<Integer> inOrderTraversal(BalancedBst<Integer> tree) {
@@ -0,0 +1,108 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+
+public final class BinaryCodecTests {
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static DataInputStream roundTrip(Writer w) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            w.write(out);
+        }
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test void mapsShouldRoundTrip() throws IOException {
+        var m = VTreeMap.<Integer, String>empty();
+        for (var i = 0; i < 10_000; i++) {
+            m = m.insert(i * 7 % 10_007, "v" + i);
+        }
+        var original = m;
+        var in = roundTrip(out -> BinaryCodec.writeMap(out, original, ElementCodec.ints(), ElementCodec.strings()));
+        var copy = BinaryCodec.readMap(in, Comparator.<Integer>naturalOrder(),
+                ElementCodec.ints(), ElementCodec.strings());
+        Assertions.assertEquals(m.size(), copy.size());
+        Assertions.assertEquals(m.toList(), copy.toList());
+        Assertions.assertEquals(Maybe.of("v3"), copy.lookup(21));
+        // the rebuilt tree is an ordinary (updatable) one
+        Assertions.assertEquals(m.size() - 1, copy.remove(21).size());
+        Assertions.assertEquals(m.size() + 1, copy.insert(-1, "x").size());
+    }
+
+    @Test void setsListsAndChainsShouldRoundTrip() throws IOException {
+        var s = VTreeSet.<String>empty(Comparator.reverseOrder()).addAll(VList.of("a", "ä", "b", "c"));
+        var set = BinaryCodec.readSet(roundTrip(out -> BinaryCodec.writeSet(out, s, ElementCodec.strings())),
+                Comparator.reverseOrder(), ElementCodec.strings());
+        Assertions.assertEquals(s.toString(), set.toString());
+        Assertions.assertTrue(set.contains("ä"));
+
+        var xs = VList.of(3L, 1L, 2L);
+        Assertions.assertEquals(xs, BinaryCodec.readList(
+                roundTrip(out -> BinaryCodec.writeList(out, xs, ElementCodec.longs())), ElementCodec.longs()));
+
+        var c = VChain.of(1.5, 2.5).concat(VChain.of(3.5));
+        Assertions.assertEquals(c, BinaryCodec.readChain(
+                roundTrip(out -> BinaryCodec.writeChain(out, c, ElementCodec.doubles())), ElementCodec.doubles()));
+        Assertions.assertEquals(VChain.<Double>empty(), BinaryCodec.readChain(
+                roundTrip(out -> BinaryCodec.writeChain(out, VChain.empty(), ElementCodec.doubles())),
+                ElementCodec.doubles()));
+    }
+
+    @Test void malformedInputShouldBeRejected() throws IOException {
+        var s = VTreeSet.<Integer>empty().addAll(VList.of(1, 2, 3));
+        // wrong order
+        Assertions.assertThrows(IOException.class, () -> BinaryCodec.readSet(
+                roundTrip(out -> BinaryCodec.writeSet(out, s, ElementCodec.ints())),
+                Comparator.<Integer>reverseOrder(), ElementCodec.ints()));
+        // wrong kind
+        Assertions.assertThrows(IOException.class, () -> BinaryCodec.readList(
+                roundTrip(out -> BinaryCodec.writeSet(out, s, ElementCodec.ints())), ElementCodec.ints()));
+        // bad magic, bad version
+        Assertions.assertThrows(IOException.class, () -> BinaryCodec.readList(
+                roundTrip(out -> out.writeInt(42)), ElementCodec.ints()));
+        Assertions.assertThrows(IOException.class, () -> BinaryCodec.readList(
+                roundTrip(out -> {
+                    out.writeInt(BinaryCodec.Magic);
+                    out.writeByte(BinaryCodec.Version + 1);
+                }), ElementCodec.ints()));
+        // truncated
+        Assertions.assertThrows(IOException.class, () -> BinaryCodec.readList(
+                roundTrip(out -> {
+                    out.writeInt(BinaryCodec.Magic);
+                    out.writeByte(BinaryCodec.Version);
+                    out.writeByte(BinaryCodec.ListKind);
+                    out.writeInt(2);
+                    out.writeInt(1);
+                }), ElementCodec.ints()));
+        // a corrupt string length fails at the end of the input, without
+        // allocating a buffer that large up front
+        Assertions.assertThrows(IOException.class, () -> BinaryCodec.readList(
+                roundTrip(out -> {
+                    out.writeInt(BinaryCodec.Magic);
+                    out.writeByte(BinaryCodec.Version);
+                    out.writeByte(BinaryCodec.ListKind);
+                    out.writeInt(1);
+                    out.writeInt(Integer.MAX_VALUE);
+                    out.writeBytes("abc");
+                }), ElementCodec.strings()));
+    }
+
+    @Test void longStringsShouldRoundTrip() throws IOException {
+        var xs = VList.of("", "x".repeat(1 << 16), "y".repeat((1 << 18) + 3));
+        Assertions.assertEquals(xs, BinaryCodec.readList(
+                roundTrip(out -> BinaryCodec.writeList(out, xs, ElementCodec.strings())),
+                ElementCodec.strings()));
+    }
+}
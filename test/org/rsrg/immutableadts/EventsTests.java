@@ -0,0 +1,77 @@
+package org.rsrg.immutableadts;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class EventsTests {
+
+    @TempDir Path dir;
+
+    private List<RecordedEvent> record(Duration threshold, Runnable work) throws IOException {
+        var file = dir.resolve("ops.jfr");
+        try (var r = new Recording()) {
+            r.enable(Events.TreeBulkOperation.class).withThreshold(threshold);
+            r.enable(Events.ListAppend.class).withThreshold(threshold);
+            r.enable(Events.ChainRestructure.class).withThreshold(threshold);
+            r.start();
+            work.run();
+            r.stop();
+            r.dump(file);
+        }
+        var result = new ArrayList<RecordedEvent>();
+        for (var e : RecordingFile.readAllEvents(file)) {
+            if (e.getEventType().getName().startsWith("org.rsrg.immutableadts.")) {
+                result.add(e);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isOperation(RecordedEvent e, String name) {
+        return e.hasField("operation") && name.equals(e.getString("operation"));
+    }
+
+    private static void workload() {
+        var s = VTreeSet.<Integer>empty().addAll(List.of(1, 2, 3));
+        s.union(s, VTreeSet.<Integer>empty().addAll(List.of(3, 4)));
+        VList.of(1, 2).append(VList.of(3, 4, 5));
+        var b = VChain.<Integer>builder();
+        for (var i = 0; i < 2000; i++) {
+            b.add(i);
+        }
+        b.build().rebalance().compact().toList();
+    }
+
+    @Test void operationsShouldBeRecordedWithTheirSizes() throws IOException {
+        var events = record(Duration.ZERO, EventsTests::workload);
+        var union = events.stream()
+                .filter(e -> isOperation(e, "VTreeSet.union"))
+                .findFirst().orElseThrow();
+        Assertions.assertEquals(5, union.getLong("inputSize"));
+        Assertions.assertEquals(4, union.getLong("resultSize"));
+        var append = events.stream()
+                .filter(e -> e.getEventType().getName().endsWith("ListAppend"))
+                .findFirst().orElseThrow();
+        Assertions.assertEquals(2, append.getLong("copied"));
+        Assertions.assertEquals(3, append.getLong("shared"));
+        var compact = events.stream()
+                .filter(e -> isOperation(e, "VChain.compact"))
+                .findFirst().orElseThrow();
+        Assertions.assertEquals(2000, compact.getLong("length"));
+        Assertions.assertTrue(events.stream().anyMatch(e -> isOperation(e, "VChain.toList")));
+    }
+
+    @Test void fastOperationsShouldStayBelowTheThreshold() throws IOException {
+        Assertions.assertEquals(List.of(), record(Duration.ofHours(1), EventsTests::workload));
+    }
+}
@@ -0,0 +1,92 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+public final class InternerTests {
+
+    @Test void equalSetsShouldShareTheirTree() {
+        var interner = new Interner();
+        // same items, inserted in different orders (so differently shaped)
+        var s = VTreeSet.<String>empty();
+        var t = VTreeSet.<String>empty();
+        for (var i = 0; i < 100; i++) {
+            s = s.insert("tag" + i);
+            t = t.insert("tag" + (99 - i));
+        }
+        Assertions.assertEquals(s, t);
+        var si = interner.intern(s);
+        var ti = interner.intern(t);
+        Assertions.assertEquals(s, si);
+        Assertions.assertSame(si.root(), ti.root());
+        Assertions.assertEquals(si, ti);
+        Assertions.assertEquals(100, interner.size());
+        Assertions.assertTrue(si.stats().balanced());
+        Assertions.assertTrue(si.insert("x").contains("tag42"));
+        Assertions.assertNotEquals(si, si.remove("tag1"));
+        Assertions.assertEquals(s.hashCode(), ti.hashCode());
+    }
+
+    @Test void equalMapsShouldShareTheirTree() {
+        var interner = new Interner();
+        var m = VTreeMap.<Integer, String>empty().insert(1, "a").insert(2, "b").insert(3, "c");
+        var n = VTreeMap.<Integer, String>empty().insert(3, "c").insert(1, "a").insert(2, "b");
+        Assertions.assertSame(interner.intern(m).root(), interner.intern(n).root());
+        Assertions.assertNotEquals(m, n.insert(2, "B"));
+        Assertions.assertEquals(m.hashCode(), n.hashCode());
+    }
+
+    @Test void listsShouldShareInternedSuffixes() {
+        var interner = new Interner();
+        var xs = interner.intern(VList.of(1, 2, 3, 4));
+        var ys = interner.intern(VList.of(0, 2, 3, 4));
+        var zs = interner.intern(VList.of(1, 2, 3, 4));
+        Assertions.assertEquals(VList.of(1, 2, 3, 4), xs);
+        Assertions.assertEquals(xs, zs);
+        // 4 cells for xs, plus one for ys's distinct head
+        Assertions.assertEquals(5, interner.size());
+        Assertions.assertEquals("[0, 2, 3, 4]", ys.mkString("[", ", ", "]"));
+    }
+
+    @Test void collectedNodesShouldBePurged() {
+        var interner = new Interner();
+        var s = interner.intern(VTreeSet.<Integer>empty().addAll(VList.of(1, 2, 3)));
+        Assertions.assertEquals(3, interner.size());
+        var root = (BalancedBst.AlgebraicTr.Node<Integer>) s.root();
+        interner.expire(root);
+        // the cleared entry is purged, and no longer matches an equal node
+        Assertions.assertEquals(2, interner.size());
+        var t = interner.intern(VTreeSet.<Integer>empty().addAll(VList.of(1, 2, 3)));
+        Assertions.assertNotSame(root, t.root());
+        var newRoot = (BalancedBst.AlgebraicTr.Node<Integer>) t.root();
+        Assertions.assertSame(root.left(), newRoot.left());
+        Assertions.assertSame(root.right(), newRoot.right());
+        Assertions.assertEquals(3, interner.size());
+    }
+
+    @Test void garbageCollectionShouldKeepNodesInUse() throws InterruptedException {
+        var interner = new Interner();
+        var kept = new ArrayList<VTreeSet<Integer>>();
+        for (var i = 0; i < 50; i++) {
+            var s = interner.intern(VTreeSet.<Integer>empty().addAll(VList.of(i, i + 1000, i + 2000)));
+            if (i == 0) {
+                kept.add(s);
+            }
+        }
+        var before = interner.size();
+        Assertions.assertTrue(before >= 3 && before <= 150, "size " + before);
+        // collection isn't guaranteed, so only check that whatever the GC did
+        // never grew the table or dropped the nodes still in use
+        for (var attempt = 0; attempt < 50 && interner.size() > 3; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+            var size = interner.size();
+            Assertions.assertTrue(size >= 3 && size <= before, "size " + size);
+            before = size;
+        }
+        Assertions.assertSame(kept.getFirst().root(),
+                interner.intern(VTreeSet.<Integer>empty().addAll(VList.of(0, 1000, 2000))).root());
+    }
+}
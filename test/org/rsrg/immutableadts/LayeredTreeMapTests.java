@@ -0,0 +1,157 @@
+package org.rsrg.immutableadts;
+
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.IntRange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public final class LayeredTreeMapTests {
+
+    private static List<Pair<Integer, String>> contents(Iterable<Pair<Integer, String>> m) {
+        var result = new ArrayList<Pair<Integer, String>>();
+        m.forEach(result::add);
+        return result;
+    }
+
+    private static List<Pair<Integer, String>> contents(TreeMap<Integer, String> m) {
+        var result = new ArrayList<Pair<Integer, String>>();
+        m.forEach((k, v) -> result.add(Pair.of(k, v)));
+        return result;
+    }
+
+    @Property void shouldBehaveLikeATreeMap(@ForAll List<@IntRange(min = -30, max = 30) Integer> ops) {
+        var base = VTreeMap.<Integer, String>empty();
+        var expected = new TreeMap<Integer, String>();
+        for (var i = 0; i < 30; i += 3) {
+            base = base.insert(i, "b" + i);
+            expected.put(i, "b" + i);
+        }
+        var m = LayeredTreeMap.of(base);
+        var step = 0;
+        for (var op : ops) {
+            if (op >= 0) {
+                m = m.insert(op % 20, "v" + op);
+                expected.put(op % 20, "v" + op);
+            } else {
+                m = m.remove(-op % 20);
+                expected.remove(-op % 20);
+            }
+            if (++step % 7 == 0) {
+                m = m.compact();
+                Assertions.assertEquals(0, m.deltaSize());
+            }
+            Assertions.assertEquals(expected.size(), m.size());
+        }
+        Assertions.assertEquals(contents(expected), contents(m));
+        Assertions.assertEquals(contents(expected), contents(m.compact()));
+        for (var k = -1; k <= 30; k++) {
+            Assertions.assertEquals(Maybe.of(expected.get(k)), m.lookup(k));
+        }
+    }
+
+    @Test void removingDeltaOnlyKeysShouldNotLeaveTombstones() {
+        var m = LayeredTreeMap.<Integer, String>empty().insert(1, "a").insert(2, "b").remove(1);
+        Assertions.assertEquals(1, m.deltaSize());
+        var n = m.compact().remove(2);
+        Assertions.assertEquals(1, n.deltaSize()); // hides the base binding
+        Assertions.assertEquals(0, n.size());
+        Assertions.assertEquals(0, n.compact().baseSize());
+    }
+
+    @Test void backgroundCompactionShouldKeepTheDeltaSmall() throws Exception {
+        var m = new CompactingTreeMap<Integer, String>(LayeredTreeMap.empty(), Runnable::run, 16, 4);
+        for (var i = 0; i < 5000; i++) {
+            m.insert(i, "v" + i);
+            if (i % 3 == 0) {
+                m.remove(i / 2);
+            }
+            var snap = m.snapshot();
+            Assertions.assertTrue(snap.deltaSize() <= Math.max(16, snap.baseSize() / 4) + 1,
+                    "delta of " + snap.deltaSize() + " over a base of " + snap.baseSize());
+        }
+        m.compactAsync().get(10, TimeUnit.SECONDS);
+        var snap = m.snapshot();
+        Assertions.assertEquals(0, snap.deltaSize());
+        Assertions.assertEquals(snap.size(), snap.baseSize());
+        Assertions.assertEquals(Maybe.of("v4999"), m.lookup(4999));
+        Assertions.assertEquals(Maybe.none(), m.lookup(0));
+    }
+
+    @Test void failedCompactionsShouldBeRetried() {
+        var rejecting = new AtomicBoolean(true);
+        Executor executor = r -> {
+            if (rejecting.get()) {
+                throw new RejectedExecutionException("shut down");
+            }
+            r.run();
+        };
+        var m = new CompactingTreeMap<Integer, String>(LayeredTreeMap.empty(), executor, 4, 4);
+        for (var i = 0; i < 100; i++) {
+            m.insert(i, "v" + i); // must not throw
+        }
+        Assertions.assertEquals(0, m.snapshot().baseSize());
+        Assertions.assertEquals(Maybe.of("v42"), m.lookup(42));
+        var failed = m.compactAsync();
+        Assertions.assertTrue(failed.isCompletedExceptionally());
+
+        rejecting.set(false);
+        m.insert(100, "v100");
+        var snap = m.snapshot();
+        Assertions.assertEquals(101, snap.size());
+        Assertions.assertTrue(snap.baseSize() >= 100, "base of " + snap.baseSize());
+        Assertions.assertTrue(snap.deltaSize() <= 4);
+        Assertions.assertEquals(Maybe.of("v42"), m.lookup(42));
+    }
+
+    @Test void compactionsThatThrowShouldBeRetried() {
+        var failing = new AtomicBoolean(false);
+        var merging = new AtomicBoolean(false);
+        Executor executor = r -> {
+            merging.set(true);
+            try {
+                r.run();
+            } finally {
+                merging.set(false);
+            }
+        };
+        // the comparator only fails inside the background merge
+        Comparator<Integer> o = (x, y) -> {
+            if (failing.get() && merging.get()) {
+                throw new IllegalStateException("merge failed");
+            }
+            return Integer.compare(x, y);
+        };
+        var m = new CompactingTreeMap<Integer, String>(LayeredTreeMap.empty(o), executor, 4, 4);
+        for (var i = 0; i < 8; i += 2) {
+            m.insert(i, "v" + i);
+        }
+        m.compactAsync();
+        Assertions.assertEquals(4, m.snapshot().baseSize());
+        for (var i = 1; i < 8; i += 2) {
+            m.insert(i, "v" + i);
+        }
+        failing.set(true);
+        Assertions.assertTrue(m.compactAsync().isCompletedExceptionally());
+        Assertions.assertEquals(4, m.snapshot().baseSize());
+        Assertions.assertEquals(Maybe.of("v3"), m.lookup(3));
+
+        failing.set(false);
+        m.insert(8, "v8"); // retries the sealed layer
+        Assertions.assertEquals(8, m.snapshot().baseSize());
+        Assertions.assertTrue(m.compactAsync().isDone());
+        var snap = m.snapshot();
+        Assertions.assertEquals(9, snap.size());
+        Assertions.assertEquals(9, snap.baseSize());
+        Assertions.assertEquals(0, snap.deltaSize());
+    }
+}
@@ -0,0 +1,79 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class LookupCacheTests {
+
+    @Test void hotKeysShouldNotReachTheKeyOrder() {
+        var comparisons = new AtomicInteger();
+        Comparator<Integer> o = (x, y) -> {
+            comparisons.incrementAndGet();
+            return Integer.compare(x, y);
+        };
+        var m = VTreeMap.<Integer, String>empty(o);
+        for (var i = 0; i < 1000; i++) {
+            m = m.insert(i, "v" + i);
+        }
+        var cache = LookupCache.of(m, 64);
+        for (var k = -5; k < 5; k++) {
+            Assertions.assertEquals(m.lookup(k), cache.lookup(k));
+        }
+        comparisons.set(0);
+        for (var round = 0; round < 100; round++) {
+            for (var k = -5; k < 5; k++) {
+                Assertions.assertEquals(k >= 0, cache.member(k));
+            }
+        }
+        Assertions.assertEquals(0, comparisons.get());
+        Assertions.assertEquals(1000, cache.hits());
+        Assertions.assertEquals(10, cache.misses());
+    }
+
+    @Test void cachesShouldStayBounded() {
+        var m = VTreeMap.<Integer, Integer>empty();
+        for (var i = 0; i < 100; i++) {
+            m = m.insert(i, i);
+        }
+        var cache = LookupCache.of(m, 16);
+        for (var i = 0; i < 100; i++) {
+            cache.lookup(i);
+        }
+        // the oldest keys have been evicted, the newest are still there
+        cache.lookup(0);
+        cache.lookup(99);
+        Assertions.assertEquals(1, cache.hits());
+        Assertions.assertEquals(101, cache.misses());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LookupCache.of(VTreeMap.<Integer, Integer>empty(), 0));
+    }
+
+    @Test void concurrentReadersShouldSeeTheSnapshot() throws InterruptedException {
+        var m = VTreeMap.<Integer, Integer>empty();
+        for (var i = 0; i < 500; i++) {
+            m = m.insert(i, i * 2);
+        }
+        var cache = LookupCache.of(m, 100);
+        var failures = new AtomicInteger();
+        var threads = new ArrayList<Thread>();
+        for (var t = 0; t < 4; t++) {
+            var seed = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (var i = 0; i < 20_000; i++) {
+                    var k = (i * 31 + seed) % 600;
+                    if (!cache.lookup(k).equals(k < 500 ? Maybe.of(k * 2) : Maybe.none())) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (var t : threads) {
+            t.join();
+        }
+        Assertions.assertEquals(0, failures.get());
+        Assertions.assertEquals(80_000, cache.hits() + cache.misses());
+    }
+}
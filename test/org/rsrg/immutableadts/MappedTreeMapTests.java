@@ -0,0 +1,108 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+
+public final class MappedTreeMapTests {
+
+    @TempDir Path dir;
+
+    private static VTreeMap<Integer, String> evens(int n) {
+        var kvs = new ArrayList<Pair<Integer, String>>();
+        for (var i = 0; i < n; i++) {
+            kvs.add(Pair.of(2 * i, "v" + i));
+        }
+        return VTreeMap.<Integer, String>empty().insertAll(kvs);
+    }
+
+    @Test void lookupsShouldMatchTheWrittenMap() throws IOException {
+        var file = dir.resolve("evens.vmap");
+        var m = evens(10_000);
+        MappedTreeMap.write(file, m, ElementCodec.ints(), ElementCodec.strings());
+        try (var mapped = MappedTreeMap.open(file, Comparator.<Integer>naturalOrder(),
+                ElementCodec.ints(), ElementCodec.strings())) {
+            Assertions.assertEquals(m.size(), mapped.size());
+            for (var k = -3; k < 20_003; k++) {
+                Assertions.assertEquals(m.lookup(k), mapped.lookup(k), "key " + k);
+                Assertions.assertEquals(m.member(k), mapped.member(k));
+            }
+            Assertions.assertEquals(m.toList(), mapped.toVTreeMap().toList());
+        }
+    }
+
+    @Test void rangesShouldBeHalfOpen() throws IOException {
+        var file = dir.resolve("range.vmap");
+        MappedTreeMap.write(file, evens(1000), ElementCodec.ints(), ElementCodec.strings());
+        try (var mapped = MappedTreeMap.open(file, Comparator.<Integer>naturalOrder(),
+                ElementCodec.ints(), ElementCodec.strings())) {
+            var keys = new ArrayList<Integer>();
+            for (var kv : mapped.range(127, 260)) {
+                keys.add(kv.first());
+            }
+            Assertions.assertEquals(128, keys.getFirst());
+            Assertions.assertEquals(258, keys.getLast());
+            Assertions.assertEquals(66, keys.size());
+            Assertions.assertFalse(mapped.range(5000, 6000).iterator().hasNext());
+            Assertions.assertEquals(0, mapped.range(-10, 1).iterator().next().first());
+        }
+    }
+
+    @Test void emptyMapsAndBadFiles() throws IOException {
+        var file = dir.resolve("empty.vmap");
+        MappedTreeMap.write(file, VTreeMap.<Integer, String>empty(), ElementCodec.ints(), ElementCodec.strings());
+        try (var mapped = MappedTreeMap.open(file, Comparator.<Integer>naturalOrder(),
+                ElementCodec.ints(), ElementCodec.strings())) {
+            Assertions.assertEquals(0, mapped.size());
+            Assertions.assertEquals(Maybe.none(), mapped.lookup(1));
+            Assertions.assertFalse(mapped.iterator().hasNext());
+        }
+        var bad = dir.resolve("bad.vmap");
+        Files.write(bad, new byte[64]);
+        Assertions.assertThrows(IOException.class, () -> MappedTreeMap.open(bad,
+                Comparator.<Integer>naturalOrder(), ElementCodec.ints(), ElementCodec.strings()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MappedTreeMap.write(bad,
+                Comparator.<Integer>naturalOrder(), VList.of(Pair.of(2, "a"), Pair.of(1, "b")),
+                ElementCodec.ints(), ElementCodec.strings()));
+    }
+
+    @Test void closedMapsShouldNotBeReadable() throws IOException {
+        var file = dir.resolve("closed.vmap");
+        MappedTreeMap.write(file, evens(10), ElementCodec.ints(), ElementCodec.strings());
+        var mapped = MappedTreeMap.open(file, Comparator.<Integer>naturalOrder(),
+                ElementCodec.ints(), ElementCodec.strings());
+        mapped.close();
+        Assertions.assertThrows(IllegalStateException.class, () -> mapped.lookup(2));
+    }
+
+    @Test void failedWritesShouldLeaveTheOldFileIntact() throws IOException {
+        var file = dir.resolve("intact.vmap");
+        MappedTreeMap.write(file, evens(100), ElementCodec.ints(), ElementCodec.strings());
+        var before = Files.readAllBytes(file);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MappedTreeMap.write(file,
+                Comparator.<Integer>naturalOrder(), VList.of(Pair.of(2, "a"), Pair.of(1, "b")),
+                ElementCodec.ints(), ElementCodec.strings()));
+        Assertions.assertArrayEquals(before, Files.readAllBytes(file));
+        try (var files = Files.list(dir)) {
+            Assertions.assertEquals(1, files.count(), "temporary file left behind");
+        }
+    }
+
+    @Test void segmentInputShouldReadLines() throws IOException {
+        var bytes = "one\ntwo\r\nthree\rfour".getBytes(StandardCharsets.ISO_8859_1);
+        var in = new SegmentInput(MemorySegment.ofArray(bytes), 0, bytes.length);
+        Assertions.assertEquals("one", in.readLine());
+        Assertions.assertEquals("two", in.readLine());
+        Assertions.assertEquals("three", in.readLine());
+        Assertions.assertEquals("four", in.readLine());
+        Assertions.assertNull(in.readLine());
+    }
+}
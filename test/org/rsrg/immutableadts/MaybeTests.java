@@ -0,0 +1,41 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+public final class MaybeTests {
+
+    @Test void combinatorsOnSome() {
+        var m = Maybe.of(21);
+        Assertions.assertEquals(Maybe.of(42), m.flatMap(x -> Maybe.of(x * 2)));
+        Assertions.assertEquals(Maybe.none(), m.flatMap(_ -> Maybe.none()));
+        Assertions.assertSame(m, m.filter(x -> x > 0));
+        Assertions.assertEquals(Maybe.none(), m.filter(x -> x < 0));
+        Assertions.assertEquals(21, m.orElseGet(() -> 0));
+        var seen = new ArrayList<Integer>();
+        m.ifPresent(seen::add);
+        Assertions.assertEquals(java.util.List.of(21), seen);
+    }
+
+    @Test void combinatorsOnNone() {
+        var m = Maybe.<Integer>none();
+        Assertions.assertEquals(Maybe.none(), m.flatMap(x -> Maybe.of(x * 2)));
+        Assertions.assertEquals(Maybe.none(), m.filter(_ -> true));
+        Assertions.assertEquals(7, m.orElseGet(() -> 7));
+        Assertions.assertEquals(7, m.getOrElse(7));
+        m.ifPresent(_ -> Assertions.fail("should not be called"));
+        Assertions.assertTrue(m.isEmpty());
+        Assertions.assertFalse(m.contains(1));
+    }
+
+    @Test void combinatorsShouldRejectNullArguments() {
+        for (var m : java.util.List.of(Maybe.of(1), Maybe.<Integer>none())) {
+            Assertions.assertThrows(NullPointerException.class, () -> m.map(null));
+            Assertions.assertThrows(NullPointerException.class, () -> m.flatMap(null));
+            Assertions.assertThrows(NullPointerException.class, () -> m.filter(null));
+            Assertions.assertThrows(NullPointerException.class, () -> m.ifPresent(null));
+        }
+    }
+}
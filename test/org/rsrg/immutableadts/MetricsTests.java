@@ -0,0 +1,73 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public final class MetricsTests {
+
+    @AfterEach void cleanUp() {
+        Metrics.setListener(null);
+        Metrics.reset();
+    }
+
+    private static void workload() {
+        var m = VTreeMap.<Integer, Integer>empty();
+        for (var i = 0; i < 1000; i++) {
+            m = m.insert(i, i);
+        }
+        for (var i = 0; i < 1000; i += 2) {
+            m = m.remove(i);
+        }
+        VList.of(1, 2, 3).append(VList.of(4));
+        var b = VChain.<Integer>builder();
+        for (var i = 0; i < 2000; i++) {
+            b.add(i);
+        }
+        for (var _ : b.build()) {
+        }
+    }
+
+    @Test void disabledMetricsShouldRecordNothing() {
+        Assumptions.assumeFalse(Metrics.Enabled);
+        Metrics.setListener((c, n) -> Assertions.fail("recorded " + c));
+        workload();
+        Assertions.assertTrue(Metrics.snapshot().values().stream().allMatch(n -> n == 0));
+    }
+
+    // run with -Dorg.rsrg.immutableadts.metrics=true
+    @Test void enabledMetricsShouldCountTheHotPaths() {
+        Assumptions.assumeTrue(Metrics.Enabled);
+        Metrics.reset();
+        var heard = new EnumMap<Metrics.Counter, Long>(Metrics.Counter.class);
+        Metrics.setListener((c, n) -> {
+            synchronized (heard) {
+                heard.merge(c, n, Long::sum);
+            }
+        });
+        workload();
+        Map<Metrics.Counter, Long> totals = Metrics.snapshot();
+        Assertions.assertEquals(totals, heard);
+        Assertions.assertTrue(totals.get(Metrics.Counter.Comparisons) > 1000 * 5);
+        Assertions.assertTrue(totals.get(Metrics.Counter.NodeAllocations) > 1000);
+        Assertions.assertTrue(totals.get(Metrics.Counter.Skews) > 0);
+        Assertions.assertTrue(totals.get(Metrics.Counter.Splits) > 0);
+        Assertions.assertTrue(totals.get(Metrics.Counter.Adjusts) > 0);
+        Assertions.assertEquals(1, totals.get(Metrics.Counter.ListAppends));
+        Assertions.assertEquals(3, totals.get(Metrics.Counter.ListAppendCopies));
+        Assertions.assertTrue(totals.get(Metrics.Counter.ChainSteps) >= 4);
+    }
+
+    @Test void heightShouldBeLogarithmic() {
+        var s = VTreeSet.<Integer>empty();
+        Assertions.assertEquals(0, s.height());
+        for (var i = 0; i < 1023; i++) {
+            s = s.insert(i);
+        }
+        Assertions.assertTrue(s.height() >= 10 && s.height() <= 20, "height " + s.height());
+    }
+}
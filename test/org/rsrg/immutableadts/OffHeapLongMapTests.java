@@ -0,0 +1,86 @@
+package org.rsrg.immutableadts;
+
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.IntRange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+public final class OffHeapLongMapTests {
+
+    private static TreeMap<Long, Long> contents(OffHeapLongMap m) {
+        var result = new TreeMap<Long, Long>();
+        m.forEach(result::put);
+        return result;
+    }
+
+    @Property void shouldBehaveLikeATreeMap(@ForAll List<@IntRange(min = -50, max = 50) Integer> ops) {
+        try (var store = OffHeapLongMap.Store.ofConfined()) {
+            var m = OffHeapLongMap.empty(store);
+            var expected = new TreeMap<Long, Long>();
+            for (var op : ops) {
+                long k = Math.abs(op) % 20;
+                if (op >= 0) {
+                    m = m.insert(k, op * 10L);
+                    expected.put(k, op * 10L);
+                } else {
+                    m = m.remove(k);
+                    expected.remove(k);
+                }
+                Assertions.assertTrue(m.isBalanced(), "AA invariants broken");
+            }
+            Assertions.assertEquals(expected.size(), m.size());
+            Assertions.assertEquals(expected, contents(m));
+            for (long k = -1; k <= 20; k++) {
+                Assertions.assertEquals(Maybe.of(expected.get(k)), m.lookup(k));
+                Assertions.assertEquals(expected.getOrDefault(k, -1L), m.getOrDefault(k, -1L));
+            }
+        }
+    }
+
+    @Test void oldVersionsShouldBeUnaffected() {
+        try (var store = OffHeapLongMap.Store.ofShared()) {
+            var versions = new ArrayList<OffHeapLongMap>();
+            var m = OffHeapLongMap.empty(store);
+            for (var i = 0; i < 1000; i++) {
+                versions.add(m);
+                m = m.insert(i, i);
+            }
+            for (var i = 0; i < 1000; i += 2) {
+                m = m.remove(i);
+            }
+            Assertions.assertEquals(500, m.size());
+            Assertions.assertTrue(m.isBalanced());
+            for (var i = 0; i < 1000; i++) {
+                var v = versions.get(i);
+                Assertions.assertEquals(i, v.size());
+                Assertions.assertEquals(i > 0, v.member(i - 1));
+                Assertions.assertFalse(v.member(i));
+            }
+        }
+    }
+
+    @Test void copiesShouldOutliveTheirSource() {
+        OffHeapLongMap copy;
+        try (var target = OffHeapLongMap.Store.ofShared()) {
+            try (var source = OffHeapLongMap.Store.ofShared()) {
+                var m = OffHeapLongMap.empty(source);
+                for (var i = 0; i < 100_000; i++) {
+                    m = m.insert(i * 31L % 100_003, i);
+                }
+                copy = m.copyTo(target);
+                Assertions.assertEquals(contents(m), contents(copy));
+                Assertions.assertTrue(source.bytesReserved() > target.bytesReserved());
+            }
+            Assertions.assertTrue(copy.isBalanced());
+            Assertions.assertEquals(100_000, copy.size());
+            Assertions.assertEquals(Maybe.of(1L), copy.lookup(31));
+            Assertions.assertEquals(Maybe.of(-1L), copy.insert(-5, -1).lookup(-5));
+        }
+        Assertions.assertThrows(IllegalStateException.class, () -> copy.member(31));
+    }
+}
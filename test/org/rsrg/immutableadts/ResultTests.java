@@ -0,0 +1,132 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class ResultTests {
+
+    private static VList<Integer> range(int n) {
+        var xs = new ArrayList<Integer>();
+        for (var i = 0; i < n; i++) {
+            xs.add(i);
+        }
+        return VList.ofAll(xs);
+    }
+
+    @Test void sequenceShouldKeepOrderAndReportErrors() {
+        var oks = VList.<Result<Integer, String>>of(Result.ok(1), Result.ok(2), Result.ok(3));
+        Assertions.assertEquals(VList.of(1, 2, 3), Result.sequence(oks).get());
+        var errs = VList.<Result<Integer, String>>of(Result.ok(1), Result.err("a"), Result.err("b"));
+        Assertions.assertEquals("a", Result.sequence(errs).getError());
+        Assertions.assertEquals(VList.empty(), Result.sequence(VList.<Result<Integer, String>>empty()).get());
+    }
+
+    @Test void traverseParallelShouldPreserveOrder() {
+        var result = Result.<Integer, Integer, String>traverseParallel(range(1000), 16, x -> {
+            if (x % 7 == 0) {
+                Thread.yield();
+            }
+            return Result.ok(x * 2);
+        });
+        Assertions.assertEquals(range(1000).map(x -> x * 2), result.get());
+    }
+
+    @Test void traverseParallelShouldReturnTheLeftmostError() {
+        for (var k = 1; k <= 8; k *= 2) {
+            var result = Result.<Integer, Integer, String>traverseParallel(range(500), k, x ->
+                    x % 100 == 37 ? Result.err("bad " + x) : Result.ok(x));
+            Assertions.assertEquals("bad 37", result.getError());
+        }
+    }
+
+    @Test void traverseParallelShouldBoundConcurrency() {
+        var inFlight = new AtomicInteger();
+        var maxSeen = new AtomicInteger();
+        Result.<Integer, Integer, String>traverseParallel(range(200), 3, x -> {
+            maxSeen.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return Result.ok(x);
+        });
+        Assertions.assertTrue(maxSeen.get() <= 3, "saw " + maxSeen.get() + " in flight");
+    }
+
+    @Test void anErrorShouldInterruptWorkToItsRight() {
+        var started = new CountDownLatch(1);
+        var interrupted = new CountDownLatch(1);
+        var result = Result.<Integer, Integer, String>traverseParallel(range(2), 2, x -> {
+            if (x == 0) {
+                try {
+                    started.await(); // until element 1 is running
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return Result.err("stop");
+            }
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return Result.ok(x);
+        });
+        Assertions.assertEquals("stop", result.getError());
+        Assertions.assertDoesNotThrow(() -> Assertions.assertTrue(interrupted.await(10, TimeUnit.SECONDS)));
+    }
+
+    @Test void anErrorLeftOfAnExceptionShouldWin() {
+        for (var round = 0; round < 20; round++) {
+            var thrown = new CountDownLatch(1);
+            var result = Result.<Integer, Integer, String>traverseParallel(range(2), 2, x -> {
+                if (x == 1) {
+                    thrown.countDown();
+                    throw new IllegalStateException("boom");
+                }
+                try {
+                    thrown.await(); // as in traverse, element 0 decides
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return Result.err("stop");
+            });
+            Assertions.assertEquals("stop", result.getError());
+        }
+    }
+
+    @Test void exceptionsShouldPropagate() {
+        var ex = Assertions.assertThrows(IllegalStateException.class, () ->
+                Result.<Integer, Integer, String>traverseParallel(range(50), 4, x -> {
+                    if (x == 10) {
+                        throw new IllegalStateException("boom");
+                    }
+                    return Result.ok(x);
+                }));
+        Assertions.assertEquals("boom", ex.getMessage());
+    }
+
+    @Test void traverseAsyncShouldRunOnASuppliedExecutor() throws Exception {
+        try (var pool = Executors.newFixedThreadPool(2)) {
+            var future = Result.<Integer, String, String>traverseAsync(range(100), 2, pool,
+                    x -> Result.ok(Thread.currentThread().isVirtual() ? "virtual" : "pooled"));
+            var result = future.get(10, TimeUnit.SECONDS).get();
+            Assertions.assertEquals(100, result.length());
+            for (var s : result) {
+                Assertions.assertEquals("pooled", s);
+            }
+        }
+        Assertions.assertEquals(VList.empty(),
+                Result.<Integer, Integer, String>traverseAsync(VList.empty(), 1, Result::ok).get().get());
+    }
+}
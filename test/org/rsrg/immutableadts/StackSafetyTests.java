@@ -0,0 +1,108 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Regression tests making sure that traversals over large (or deep)
+ * structures don't overflow the stack -- both on virtual threads and on
+ * platform threads with a deliberately small stack.
+ */
+public final class StackSafetyTests {
+
+    private static final int ChainSize = 10_000_000;
+    private static final int DegenerateDepth = 1_000_000;
+    private static final int TreeSize = 1_000_000;
+
+    private static void onSmallStacks(Runnable body) throws Exception {
+        var failure = new AtomicReference<Throwable>();
+        Runnable guarded = () -> {
+            try {
+                body.run();
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        };
+        Thread.ofVirtual().start(guarded).join();
+        var platform = new Thread(null, guarded, "small-stack", 128 * 1024);
+        platform.start();
+        platform.join();
+        if (failure.get() != null) {
+            Assertions.fail(failure.get());
+        }
+    }
+
+    @Test void largeChainOperations() throws Exception {
+        onSmallStacks(() -> {
+            var chain = VChain.<Integer>empty();
+            for (var i = 0; i < ChainSize; i++) {
+                chain = chain.append(i);
+            }
+            Assertions.assertEquals(ChainSize, chain.length());
+            Assertions.assertFalse(chain.isEmpty());
+            Assertions.assertFalse(chain.exists(x -> x < 0));
+            Assertions.assertEquals(Maybe.of(ChainSize - 1), chain.last());
+            Assertions.assertEquals(ChainSize / 2, chain.get(ChainSize / 2));
+            var mapped = chain.map(x -> x + 1);
+            Assertions.assertEquals(Maybe.of(1), mapped.head());
+            Assertions.assertNotEquals(chain, mapped);
+            Assertions.assertEquals(chain.hashCode(), chain.compact().hashCode());
+        });
+    }
+
+    @Test void degenerateChainOperations() throws Exception {
+        onSmallStacks(() -> {
+            var chain = VChain.<Integer>empty();
+            var other = VChain.<Integer>empty();
+            for (var i = 0; i < DegenerateDepth; i++) {
+                // link (rather than concat) doesn't rebalance
+                chain = VChain.link(chain, VChain.of(i));
+                other = VChain.link(VChain.of(DegenerateDepth - 1 - i), other);
+            }
+            Assertions.assertEquals(DegenerateDepth, chain.length());
+            Assertions.assertFalse(chain.isEmpty());
+            Assertions.assertEquals(Maybe.of(0), chain.head());
+            Assertions.assertEquals(Maybe.of(DegenerateDepth - 1), chain.last());
+            Assertions.assertEquals(17, chain.get(17));
+            Assertions.assertTrue(chain.exists(x -> x == DegenerateDepth - 1));
+            Assertions.assertEquals(Maybe.of(1), chain.map(x -> x + 1).head());
+            Assertions.assertEquals(chain, other);
+            Assertions.assertEquals(chain.hashCode(), other.hashCode());
+            Assertions.assertEquals(chain.toList(), chain.rebalance().toList());
+        });
+    }
+
+    @Test void largeTreeOperations() throws Exception {
+        onSmallStacks(() -> {
+            var tree = BalancedBst.<Integer>empty();
+            for (var i = 0; i < TreeSize; i++) {
+                tree = tree.insert(i);
+            }
+            Assertions.assertEquals(TreeSize, tree.size());
+            Assertions.assertTrue(tree.contains(TreeSize - 1));
+            Assertions.assertEquals(Maybe.of(42), tree.find(42));
+            long sum = tree.fold(tree, 0L, (acc, x) -> acc + x);
+            Assertions.assertEquals((long) TreeSize * (TreeSize - 1) / 2, sum);
+            for (var i = 0; i < TreeSize; i += 2) {
+                tree = tree.delete(i);
+            }
+            Assertions.assertEquals(TreeSize / 2, tree.size());
+            Assertions.assertFalse(tree.contains(0));
+        });
+    }
+
+    @Test void longListOperations() throws Exception {
+        onSmallStacks(() -> {
+            var xs = VList.<Integer>empty();
+            for (var i = 0; i < ChainSize; i++) {
+                xs = xs.prepend(i);
+            }
+            var ys = xs.map(x -> x);
+            Assertions.assertEquals(xs, ys);
+            Assertions.assertEquals(xs.hashCode(), ys.hashCode());
+            Assertions.assertEquals(ChainSize, xs.append(VList.empty()).length());
+        });
+    }
+}
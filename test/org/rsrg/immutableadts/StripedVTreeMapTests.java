@@ -0,0 +1,67 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class StripedVTreeMapTests {
+
+    @Test void splitKeysMustBeIncreasing() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> StripedVTreeMap.<Integer, String>empty(List.of(10, 5)));
+    }
+
+    @Test void bindingsShouldLandInTheirShardAndIterateInOrder() {
+        var map = StripedVTreeMap.<Integer, String>empty(List.of(10, 20));
+        for (var k : List.of(25, 3, 10, 19, 20, -4)) {
+            map.insert(k, "v" + k);
+        }
+        var snapshot = map.snapshot();
+        Assertions.assertEquals(6, snapshot.size());
+        Assertions.assertEquals("[(-4, v-4), (3, v3)]", snapshot.shards().get(0).toString());
+        Assertions.assertEquals("[(10, v10), (19, v19)]", snapshot.shards().get(1).toString());
+        Assertions.assertEquals("[(20, v20), (25, v25)]", snapshot.shards().get(2).toString());
+        Assertions.assertEquals("[(-4, v-4), (3, v3), (10, v10), (19, v19), (20, v20), (25, v25)]",
+                snapshot.toString());
+        Assertions.assertEquals(snapshot.toString(), snapshot.toVTreeMap().toString());
+
+        map.remove(19);
+        Assertions.assertEquals(Maybe.none(), map.lookup(19));
+        Assertions.assertEquals(Maybe.of("v19"), snapshot.lookup(19));
+        Assertions.assertEquals(5, map.size());
+    }
+
+    @Test void snapshotsShouldBeConsistentUnderConcurrentWrites() throws InterruptedException {
+        // each writer moves one unit between two shards at a time; any
+        // consistent snapshot therefore sums to zero
+        var map = StripedVTreeMap.<Integer, Integer>empty(List.of(100, 200, 300));
+        var writers = new ArrayList<Thread>();
+        for (var w = 0; w < 3; w++) {
+            var from = w * 100 + 50;
+            var to = (w + 1) * 100 + 50;
+            writers.add(Thread.ofPlatform().start(() -> {
+                for (var i = 0; i < 2000; i++) {
+                    map.merge(to, 1, Integer::sum);
+                    map.merge(from, -1, Integer::sum);
+                }
+            }));
+        }
+        for (var i = 0; i < 200; i++) {
+            var sum = 0;
+            for (var kv : map.snapshot()) {
+                sum += kv.second();
+            }
+            Assertions.assertTrue(sum == 0 || sum == 1 || sum == 2 || sum == 3, "sum: " + sum);
+        }
+        for (var w : writers) {
+            w.join();
+        }
+        var total = 0;
+        for (var kv : map) {
+            total += kv.second();
+        }
+        Assertions.assertEquals(0, total);
+    }
+}
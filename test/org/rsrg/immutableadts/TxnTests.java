@@ -0,0 +1,128 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class TxnTests {
+
+    private static void inOtherThread(Runnable body) {
+        try {
+            Thread.ofPlatform().start(body).join();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test void writesToSeveralRefsShouldCommitTogether() {
+        var byId = new Txn.MapRef<>(VTreeMap.<Integer, String>empty());
+        var names = new Txn.SetRef<>(VTreeSet.<String>empty());
+        var result = Txn.atomic(tx -> {
+            tx.insert(byId, 1, "ada");
+            tx.add(names, "ada");
+            // a transaction sees its own writes
+            return tx.lookup(byId, 1).get() + tx.contains(names, "ada");
+        });
+        Assertions.assertEquals("adatrue", result);
+        Assertions.assertEquals(Maybe.of("ada"), byId.get().lookup(1));
+        Assertions.assertTrue(names.get().contains("ada"));
+
+        Txn.run(tx -> {
+            tx.remove(byId, 1);
+            tx.remove(names, "ada");
+            Assertions.assertFalse(tx.member(byId, 1));
+            Assertions.assertEquals(0, tx.snapshot(names).size());
+        });
+        Assertions.assertEquals(0, byId.get().size());
+        Assertions.assertEquals(0, names.get().size());
+    }
+
+    @Test void failingTransactionsShouldHaveNoEffect() {
+        var ref = new Txn.MapRef<>(VTreeMap.<Integer, String>empty());
+        Assertions.assertThrows(IllegalStateException.class, () -> Txn.run(tx -> {
+            tx.insert(ref, 1, "one");
+            throw new IllegalStateException();
+        }));
+        Assertions.assertEquals(0, ref.get().size());
+    }
+
+    @Test void writesToOtherKeysShouldNotForceARetry() {
+        var ref = new Txn.MapRef<>(VTreeMap.<Integer, Integer>empty().insert(1, 1).insert(2, 2));
+        var attempts = new AtomicInteger();
+        Txn.run(tx -> {
+            var n = tx.lookup(ref, 1).get();
+            if (attempts.getAndIncrement() == 0) {
+                inOtherThread(() -> Txn.run(other -> other.insert(ref, 2, 20)));
+            }
+            tx.insert(ref, 1, n + 1);
+        });
+        Assertions.assertEquals(1, attempts.get());
+        Assertions.assertEquals(Maybe.of(2), ref.get().lookup(1));
+        Assertions.assertEquals(Maybe.of(20), ref.get().lookup(2));
+    }
+
+    @Test void writesToReadKeysShouldForceARetry() {
+        var ref = new Txn.MapRef<>(VTreeMap.<Integer, Integer>empty().insert(1, 1));
+        var attempts = new AtomicInteger();
+        Txn.run(tx -> {
+            var n = tx.lookup(ref, 1).get();
+            if (attempts.getAndIncrement() == 0) {
+                inOtherThread(() -> Txn.run(other -> other.insert(ref, 1, 10)));
+            }
+            tx.insert(ref, 1, n + 1);
+        });
+        Assertions.assertEquals(2, attempts.get());
+        Assertions.assertEquals(Maybe.of(11), ref.get().lookup(1));
+    }
+
+    @Test void concurrentTransfersShouldPreserveTheTotal() throws InterruptedException {
+        final int accounts = 8, initial = 100;
+        var balances = VTreeMap.<Integer, Integer>empty();
+        for (var i = 0; i < accounts; i++) {
+            balances = balances.insert(i, initial);
+        }
+        var ref = new Txn.MapRef<>(balances);
+        var audit = new Txn.SetRef<>(VTreeSet.<Integer>empty());
+        var inconsistentReads = new AtomicInteger();
+        var workers = new ArrayList<Thread>();
+        for (var t = 0; t < 4; t++) {
+            var id = t;
+            workers.add(Thread.ofPlatform().start(() -> {
+                var rnd = ThreadLocalRandom.current();
+                for (var i = 0; i < 1000; i++) {
+                    var from = rnd.nextInt(accounts);
+                    var to = rnd.nextInt(accounts);
+                    var stamp = id * 1000 + i;
+                    Txn.run(tx -> {
+                        tx.insert(ref, from, tx.lookup(ref, from).get() - 1);
+                        tx.insert(ref, to, tx.lookup(ref, to).get() + 1);
+                        tx.add(audit, stamp);
+                    });
+                    var total = Txn.atomic(tx -> {
+                        var sum = 0;
+                        for (var a = 0; a < accounts; a++) {
+                            sum += tx.lookup(ref, a).get();
+                        }
+                        return sum;
+                    });
+                    if (total != accounts * initial) {
+                        inconsistentReads.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (var w : workers) {
+            w.join();
+        }
+        var total = 0;
+        for (var kv : ref.get()) {
+            total += kv.second();
+        }
+        Assertions.assertEquals(accounts * initial, total);
+        Assertions.assertEquals(0, inconsistentReads.get());
+        Assertions.assertEquals(4000, audit.get().size());
+    }
+}
@@ -105,6 +105,26 @@ public final class VChainTests {
         Assertions.assertNotEquals(c1, c2);
     }
 
+    @Test void testEq11() {
+        Assertions.assertEquals(VChain.<Integer>empty(), VChain.from(VList.<Integer>empty()));
+        Assertions.assertEquals(VChain.from(VList.<Integer>empty()), VChain.<Integer>empty());
+        Assertions.assertNotEquals(VChain.of(1, 2), VChain.of(1, 2, 3));
+    }
+
+    @Test void testHashCode01() {
+        var expected = java.util.List.of(1, 2, 3, 4, 5).hashCode();
+        var shapes = VList.of(
+                VChain.of(1, 2, 3, 4, 5),
+                VChain.from(VList.of(1, 2, 3, 4, 5)),
+                VChain.of(1).concat(VChain.from(VList.of(2, 3))).concat(VChain.of(4, 5)),
+                VChain.link(VChain.link(VChain.<Integer>empty(), VChain.of(1, 2)), VChain.of(3, 4, 5)));
+        for (var c : shapes) {
+            Assertions.assertEquals(expected, c.hashCode(), c::toString);
+            Assertions.assertEquals(shapes.head(), c);
+        }
+        Assertions.assertEquals(1, VChain.empty().hashCode());
+    }
+
     @Test void testIsEmpty01() {
         Assertions.assertTrue(VChain.<Integer>empty().isEmpty());
     }
@@ -278,4 +298,202 @@ public final class VChainTests {
                 .concat(VChain.from(VList.of(4, 5)));
         Assertions.assertEquals("Chain[1, 2, 3, 4, 5]", chain.toString());
     }
+
+    @Test void testLength05() {
+        var chain = VChain.<Integer>empty();
+        for (var i = 0; i < 1000; i++) {
+            chain = chain.concat(VChain.of(i, i));
+        }
+        Assertions.assertEquals(2000, chain.length());
+    }
+
+    @Test void testIsEmpty04() {
+        var chain = VChain.link(VChain.<Integer>empty(), VChain.from(VList.empty()));
+        Assertions.assertTrue(chain.isEmpty());
+        Assertions.assertEquals(Maybe.none(), chain.head());
+    }
+
+    @Test void testDepth01() {
+        var appended = VChain.<Integer>empty();
+        var prepended = VChain.<Integer>empty();
+        for (var i = 0; i < 100_000; i++) {
+            appended = appended.concat(VChain.of(i));
+            prepended = VChain.of(i).concat(prepended);
+        }
+        Assertions.assertTrue(depth(appended) <= 34, "depth: " + depth(appended));
+        Assertions.assertTrue(depth(prepended) <= 34, "depth: " + depth(prepended));
+        Assertions.assertEquals(Maybe.of(0), appended.head());
+        Assertions.assertEquals(Maybe.of(99_999), prepended.head());
+        var i = 0;
+        for (var x : appended) {
+            Assertions.assertEquals(i++, x);
+        }
+        Assertions.assertEquals(100_000, i);
+    }
+
+    @Test void testRebalance01() {
+        var chain = VChain.<Integer>empty();
+        for (var i = 0; i < 100_000; i++) {
+            chain = VChain.link(chain, VChain.of(i)); // degenerate on purpose
+        }
+        Assertions.assertEquals(100_000, depth(chain));
+        Assertions.assertFalse(chain.exists(x -> x < 0));
+        Assertions.assertEquals(Maybe.of(0), chain.head());
+
+        var balanced = chain.rebalance();
+        Assertions.assertEquals(17, depth(balanced));
+        Assertions.assertEquals(chain.length(), balanced.length());
+        Assertions.assertEquals(chain.mkString(","), balanced.mkString(","));
+        Assertions.assertEquals(17, depth(chain.map(x -> x + 1)));
+    }
+
+    @Test void testCompact01() {
+        Assertions.assertEquals(VChain.<Integer>empty(), VChain.<Integer>empty().compact());
+        Assertions.assertEquals(VChain.<Integer>empty(), VChain.from(VList.<Integer>empty()).compact());
+    }
+
+    @Test void testCompact02() {
+        var chain = VChain.<Integer>empty();
+        for (var i = 0; i < 1000; i++) {
+            chain = chain.concat(i % 2 == 0 ? VChain.of(i) : VChain.from(VList.of(i)));
+        }
+        var compacted = chain.compact();
+        Assertions.assertInstanceOf(VChain.Leaf.class, compacted);
+        Assertions.assertSame(compacted, compacted.compact());
+        Assertions.assertEquals(chain.toList(), compacted.toList());
+        Assertions.assertEquals(1000, compacted.length());
+        Assertions.assertEquals(Maybe.of(0), compacted.head());
+        Assertions.assertEquals(999, ((VChain.Leaf<Integer>) compacted).get(999));
+    }
+
+    @Test void testCompact03() {
+        var chain = VChain.of(1, 2).concat(VChain.from(VList.of(3))).compact().concat(VChain.of(4));
+        Assertions.assertEquals(VList.of(2, 4, 6, 8), chain.map(x -> x * 2).toList());
+        Assertions.assertEquals("1, 2, 3, 4", chain.mkString(", "));
+        Assertions.assertTrue(chain.exists(x -> x == 3));
+    }
+
+    @Test void testAppend01() {
+        var chain = VChain.<Integer>empty();
+        for (var i = 0; i < 100_000; i++) {
+            chain = chain.append(i);
+        }
+        Assertions.assertEquals(100_000, chain.length());
+        Assertions.assertTrue(depth(chain) <= 24, "depth: " + depth(chain));
+        var i = 0;
+        for (var x : chain) {
+            Assertions.assertEquals(i++, x);
+        }
+    }
+
+    @Test void testAppend02() {
+        var chain = VChain.of(1, 2).concat(VChain.from(VList.of(3))).append(4).append(5);
+        Assertions.assertEquals(VChain.of(1, 2, 3, 4, 5), chain);
+        Assertions.assertEquals(VChain.of(0, 1, 2, 3, 4, 5), chain.prepend(0));
+    }
+
+    @Test void testPrepend01() {
+        var chain = VChain.<Integer>empty();
+        for (var i = 0; i < 100_000; i++) {
+            chain = chain.prepend(i);
+        }
+        Assertions.assertEquals(100_000, chain.length());
+        Assertions.assertTrue(depth(chain) <= 24, "depth: " + depth(chain));
+        Assertions.assertEquals(Maybe.of(99_999), chain.head());
+    }
+
+    @Test void testBuilder01() {
+        Assertions.assertEquals(VChain.<Integer>empty(), VChain.<Integer>builder().build());
+        var builder = VChain.<Integer>builder();
+        for (var i = 0; i < 10_000; i++) {
+            builder.add(i);
+        }
+        var first = builder.build();
+        builder.addAll(VList.of(-1, -2));
+        var second = builder.build();
+        Assertions.assertEquals(10_000, first.length());
+        Assertions.assertEquals(10_002, second.length());
+        Assertions.assertTrue(depth(second) <= 5, "depth: " + depth(second));
+        var expected = VChain.<Integer>empty();
+        for (var i = 0; i < 10_000; i++) {
+            expected = expected.append(i);
+        }
+        Assertions.assertEquals(expected, first);
+        Assertions.assertEquals(expected.append(-1).append(-2), second);
+    }
+
+    @Test void testLast01() {
+        Assertions.assertEquals(Maybe.none(), VChain.<Integer>empty().last());
+        Assertions.assertEquals(Maybe.of(3), VChain.from(VList.of(1, 2, 3)).last());
+        Assertions.assertEquals(Maybe.of(1), VChain.link(VChain.of(1), VChain.from(VList.<Integer>empty())).last());
+        Assertions.assertEquals(Maybe.of(4), VChain.of(1, 2).concat(VChain.of(3, 4)).last());
+    }
+
+    @Test void testGet01() {
+        var chain = VChain.<Integer>empty();
+        for (var i = 0; i < 1000; i++) {
+            chain = i % 3 == 0 ? chain.concat(VChain.from(VList.of(i))) : chain.append(i);
+        }
+        for (var i = 0; i < 1000; i++) {
+            Assertions.assertEquals(i, chain.get(i));
+        }
+        final var c = chain;
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> c.get(-1));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> c.get(1000));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> VChain.empty().get(0));
+    }
+
+    @Test void testReverseIterator01() {
+        Assertions.assertFalse(VChain.empty().reverseIterator().hasNext());
+        var chain = VChain.of(1, 2).concat(VChain.from(VList.of(3, 4))).append(5).concat(VChain.empty());
+        var result = new java.util.ArrayList<Integer>();
+        chain.reverseIterator().forEachRemaining(result::add);
+        Assertions.assertEquals(java.util.List.of(5, 4, 3, 2, 1), result);
+    }
+
+    @Test void testReverseIterator02() {
+        // proxy leaves of sizes around the iterator's block boundaries
+        for (var n = 0; n <= 40; n++) {
+            var expected = new java.util.ArrayList<Integer>();
+            for (var i = 0; i < n; i++) {
+                expected.add(i);
+            }
+            var chain = VChain.from(VList.ofAll(expected)).append(n);
+            var result = new java.util.ArrayList<Integer>();
+            chain.reverseIterator().forEachRemaining(result::add);
+            expected.add(n);
+            Assertions.assertEquals(expected.reversed(), result);
+            Assertions.assertEquals(Maybe.of(n), chain.last());
+            Assertions.assertEquals(n == 0 ? Maybe.none() : Maybe.of(n - 1),
+                    VChain.from(VList.ofAll(expected.subList(0, n))).last());
+        }
+    }
+
+    @Test void testParallel01() {
+        var pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            var builder = VChain.<Integer>builder();
+            for (var i = 0; i < 50_000; i++) {
+                builder.add(i);
+            }
+            var chains = VList.of(VChain.<Integer>empty(), VChain.of(7), builder.build(),
+                    builder.build().compact(), builder.build().concat(VChain.from(VList.of(-1, -2))));
+            for (var chain : chains) {
+                Assertions.assertEquals(chain.map(x -> x * 2), chain.parallelMap(x -> x * 2, pool));
+                Assertions.assertEquals(chain.toList().foldLeft(0L, (acc, x) -> acc + x),
+                        chain.parallelFold(0L, (acc, x) -> acc + x, Long::sum, pool));
+                Assertions.assertEquals(chain.exists(x -> x == 49_999), chain.parallelExists(x -> x == 49_999, pool));
+                Assertions.assertFalse(chain.parallelExists(x -> x > 1_000_000, pool));
+            }
+            // combine must be applied in order
+            var strings = builder.build().parallelFold("", (acc, x) -> acc + (x % 10), String::concat, pool);
+            Assertions.assertEquals(builder.build().toList().foldLeft("", (acc, x) -> acc + (x % 10)), strings);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int depth(VChain<?> c) {
+        return c instanceof VChain.Link<?> lk ? lk.depth() : 0;
+    }
 }
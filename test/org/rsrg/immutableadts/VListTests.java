@@ -151,4 +151,32 @@ public final class VListTests {
         var result = list.mkString("{", " - ", "}");
         Assertions.assertEquals("{42}", result);
     }
-}
\ No newline at end of file
+
+    @Test void equalsOnLongListsShouldNotOverflowTheStack() {
+        var xs = VList.<Integer>empty();
+        var ys = VList.<Integer>empty();
+        for (var i = 0; i < 1_000_000; i++) {
+            xs = xs.prepend(i);
+            ys = ys.prepend(i);
+        }
+        Assertions.assertEquals(xs, ys);
+        Assertions.assertEquals(xs.hashCode(), ys.hashCode());
+        Assertions.assertNotEquals(xs, ys.prepend(-1));
+    }
+
+    @Test void equalsShouldHandleSharedSuffixes() {
+        var shared = VList.of(3, 4, 5);
+        var xs = shared.prepend(2).prepend(1);
+        var ys = shared.prepend(2).prepend(1);
+        var zs = shared.prepend(9).prepend(1);
+        Assertions.assertEquals(xs, ys);
+        Assertions.assertNotEquals(xs, zs);
+    }
+
+    @Test void hashCodeShouldMatchJavaUtilList() {
+        var xs = VList.of("a", null, "c");
+        Assertions.assertEquals(java.util.Arrays.asList("a", null, "c").hashCode(), xs.hashCode());
+        Assertions.assertEquals(xs.hashCode(), xs.hashCode());
+        Assertions.assertEquals(1, VList.empty().hashCode());
+    }
+}
@@ -0,0 +1,140 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public final class VTreeMapLogTests {
+
+    @TempDir Path dir;
+
+    private static <A> List<A> toList(Iterable<A> xs) {
+        var result = new ArrayList<A>();
+        xs.forEach(result::add);
+        return result;
+    }
+
+    @Test void commitsShouldOnlyWriteNewNodes() throws IOException {
+        var file = dir.resolve("map.vlog");
+        var expected = new ArrayList<VTreeMap<Integer, String>>();
+        var m = VTreeMap.<Integer, String>empty();
+        try (var log = VTreeMapLog.create(file, ElementCodec.ints(), ElementCodec.strings())) {
+            for (var i = 0; i < 1000; i++) {
+                m = m.insert(i * 7 % 1000, "v" + i);
+            }
+            Assertions.assertEquals(1000, log.commit(m));
+            expected.add(m);
+            for (var i = 0; i < 200; i++) {
+                m = i % 3 == 0 ? m.remove(i) : m.insert(i, "w" + i);
+                var written = log.commit(m);
+                Assertions.assertTrue(written <= 40, "wrote " + written + " nodes for one update");
+                expected.add(m);
+            }
+            Assertions.assertEquals(0, log.commit(m));
+            expected.add(m);
+        }
+        var replayed = toList(VTreeMapLog.replay(file, Comparator.<Integer>naturalOrder(),
+                ElementCodec.ints(), ElementCodec.strings()));
+        Assertions.assertEquals(expected.size(), replayed.size());
+        for (var i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).size(), replayed.get(i).size());
+            Assertions.assertEquals(toList(expected.get(i)), toList(replayed.get(i)));
+        }
+        Assertions.assertEquals(Maybe.of("w5"), replayed.getLast().lookup(5));
+        Assertions.assertEquals(Maybe.none(), replayed.getLast().lookup(3));
+    }
+
+    @Test void reopenedLogsShouldDropTornCommitsAndKeepSharing() throws IOException {
+        var file = dir.resolve("torn.vlog");
+        var m = VTreeMap.<Integer, String>empty();
+        try (var log = VTreeMapLog.create(file, ElementCodec.ints(), ElementCodec.strings())) {
+            for (var i = 0; i < 100; i++) {
+                m = m.insert(i, "v" + i);
+            }
+            log.commit(m);
+            log.commit(m.insert(100, "v100"));
+        }
+        // chop the last commit record in half
+        try (var ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 4);
+        }
+        try (var log = VTreeMapLog.open(file, Comparator.<Integer>naturalOrder(),
+                ElementCodec.ints(), ElementCodec.strings())) {
+            var versions = toList(log.versions());
+            Assertions.assertEquals(1, versions.size());
+            Assertions.assertEquals(100, versions.getFirst().size());
+            var next = versions.getFirst().insert(-1, "neg");
+            Assertions.assertTrue(log.commit(next) < 20);
+        }
+        var replayed = toList(VTreeMapLog.replay(file, Comparator.<Integer>naturalOrder(),
+                ElementCodec.ints(), ElementCodec.strings()));
+        Assertions.assertEquals(2, replayed.size());
+        Assertions.assertEquals(Maybe.of("neg"), replayed.get(1).lookup(-1));
+        Assertions.assertEquals(Maybe.none(), replayed.get(1).lookup(100));
+        Assertions.assertEquals(101, replayed.get(1).size());
+    }
+
+    @Test void badFilesShouldBeRejected() throws IOException {
+        var bad = dir.resolve("bad.vlog");
+        Files.write(bad, new byte[] {1, 2, 3});
+        Assertions.assertThrows(IOException.class, () -> VTreeMapLog.replay(bad,
+                Comparator.<Integer>naturalOrder(), ElementCodec.ints(), ElementCodec.strings()));
+        Files.write(bad, new byte[] {0x56, 0x4c, 0x4f, 0x47, 9});
+        Assertions.assertThrows(IOException.class, () -> VTreeMapLog.replay(bad,
+                Comparator.<Integer>naturalOrder(), ElementCodec.ints(), ElementCodec.strings()));
+        // a valid header followed by junk is an empty log
+        Files.write(bad, new byte[] {0x56, 0x4c, 0x4f, 0x47, 1, 2, 0, 0, 0, 9, 0, 0, 0, 1});
+        Assertions.assertEquals(0, VTreeMapLog.replay(bad, Comparator.<Integer>naturalOrder(),
+                ElementCodec.ints(), ElementCodec.strings()).length());
+    }
+
+    @Test void junkAfterTheLastCommitShouldBeDropped() throws IOException {
+        var junks = List.of(new byte[64], new byte[] {1, 0, 0, 0, 3, 9, 9, 9, 0, 0, 0, 0},
+                new byte[] {2, 0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff, 5}, new byte[] {42});
+        for (var junk : junks) {
+            var file = dir.resolve("junk.vlog");
+            var m = VTreeMap.<Integer, String>empty().insert(1, "a").insert(2, "b");
+            try (var log = VTreeMapLog.create(file, ElementCodec.ints(), ElementCodec.strings())) {
+                log.commit(m);
+                log.commit(m.insert(3, "c"));
+            }
+            var committed = Files.size(file);
+            Files.write(file, junk, StandardOpenOption.APPEND);
+            try (var log = VTreeMapLog.open(file, Comparator.<Integer>naturalOrder(),
+                    ElementCodec.ints(), ElementCodec.strings())) {
+                Assertions.assertEquals(2, log.versions().length());
+                Assertions.assertEquals(committed, Files.size(file));
+                log.commit(m.insert(4, "d"));
+            }
+            var replayed = toList(VTreeMapLog.replay(file, Comparator.<Integer>naturalOrder(),
+                    ElementCodec.ints(), ElementCodec.strings()));
+            Assertions.assertEquals(3, replayed.size());
+            Assertions.assertEquals(Maybe.of("d"), replayed.getLast().lookup(4));
+        }
+    }
+
+    @Test void corruptRecordsShouldEndTheLog() throws IOException {
+        var file = dir.resolve("flipped.vlog");
+        var m = VTreeMap.<Integer, String>empty().insert(1, "a");
+        try (var log = VTreeMapLog.create(file, ElementCodec.ints(), ElementCodec.strings())) {
+            log.commit(m);
+            log.commit(m.insert(2, "b"));
+        }
+        // flip a bit in the last (commit) record's payload
+        var bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 6] ^= 1;
+        Files.write(file, bytes);
+        var replayed = toList(VTreeMapLog.replay(file, Comparator.<Integer>naturalOrder(),
+                ElementCodec.ints(), ElementCodec.strings()));
+        Assertions.assertEquals(1, replayed.size());
+    }
+}
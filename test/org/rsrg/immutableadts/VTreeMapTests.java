@@ -214,4 +214,60 @@ public final class VTreeMapTests {
                 new VList<Pair<Integer, String>>().append(Pair.of(1, "uno")).append(Pair.of(2, "dos")).append(Pair.of(3, "three"));
         Assertions.assertEquals(expectedList, list);
     }*/
+
+    @Test void removeShouldDropBinding() {
+        var map = VTreeMap.<Integer, String>empty().insert(1, "one").insert(2, "two");
+        var removed = map.remove(1);
+        Assertions.assertEquals(1, removed.size());
+        Assertions.assertEquals(Maybe.none(), removed.lookup(1));
+        Assertions.assertEquals(Maybe.of("two"), removed.lookup(2));
+        Assertions.assertSame(removed, removed.remove(1));
+    }
+
+    @Test void insertAllShouldMatchRepeatedInsert() {
+        var map = VTreeMap.<Integer, String>empty().insert(5, "five").insert(1, "one");
+        var batch = VList.of(Pair.of(3, "three"), Pair.of(1, "uno"), Pair.of(9, "nine"), Pair.of(3, "tres"));
+        var expected = map;
+        for (var kv : batch) {
+            expected = expected.insert(kv.first(), kv.second());
+        }
+        var actual = map.insertAll(batch);
+        Assertions.assertEquals(expected.toString(), actual.toString());
+        Assertions.assertEquals(4, actual.size());
+        Assertions.assertEquals(Maybe.of("tres"), actual.lookup(3));
+        Assertions.assertEquals(Maybe.of("uno"), actual.lookup(1));
+    }
+
+    @Test void removeAllShouldDropAllGivenKeys() {
+        var map = VTreeMap.<Integer, Integer>empty();
+        var batch = new java.util.ArrayList<Pair<Integer, Integer>>();
+        for (var i = 0; i < 1000; i++) {
+            batch.add(Pair.of(i, i * i));
+        }
+        map = map.insertAll(batch);
+        Assertions.assertEquals(1000, map.size());
+
+        var evens = new java.util.ArrayList<Integer>();
+        for (var i = 0; i < 2000; i += 2) {
+            evens.add(i);
+        }
+        var odds = map.removeAll(evens);
+        Assertions.assertEquals(500, odds.size());
+        Assertions.assertFalse(odds.member(500));
+        Assertions.assertEquals(Maybe.of(9), odds.lookup(3));
+    }
+
+    @Test void statsShouldCountBindingsInTheRetainedBytes() {
+        var m = VTreeMap.<Integer, String>empty();
+        for (var i = 0; i < 100; i++) {
+            m = m.insert(i, "v" + i);
+        }
+        for (var i = 0; i < 100; i += 3) {
+            m = m.remove(i);
+        }
+        var stats = m.stats();
+        Assertions.assertEquals(m.size(), stats.nodes());
+        Assertions.assertTrue(stats.balanced());
+        Assertions.assertTrue(stats.estimatedBytes() > (long) m.size() * BalancedBst.NodeBytes);
+    }
 }
@@ -0,0 +1,79 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public final class VTreeSetTests {
+
+    @Test void insertShouldAddNewItems() {
+        var set = VTreeSet.<Integer>empty().insert(3).insert(1).insert(3);
+        Assertions.assertEquals(2, set.size());
+        Assertions.assertEquals("[1, 3]", set.toString());
+    }
+
+    @Test void removeShouldDropItems() {
+        var set = VTreeSet.<Integer>empty().insert(3).insert(1);
+        Assertions.assertEquals("[3]", set.remove(1).toString());
+        Assertions.assertEquals(2, set.remove(7).size());
+    }
+
+    @Test void addAllShouldMatchRepeatedInsert() {
+        var set = VTreeSet.<Integer>empty().insert(10).insert(20);
+        var items = VList.of(5, 20, 15, 5, 25);
+        var expected = set;
+        for (var x : items) {
+            expected = expected.insert(x);
+        }
+        var actual = set.addAll(items);
+        Assertions.assertEquals(expected.toString(), actual.toString());
+        Assertions.assertEquals(5, actual.size());
+    }
+
+    @Test void removeAllShouldDropAllGivenItems() {
+        var set = VTreeSet.<Integer>empty().addAll(VList.of(1, 2, 3, 4, 5));
+        var result = set.removeAll(VList.of(2, 4, 6));
+        Assertions.assertEquals("[1, 3, 5]", result.toString());
+        Assertions.assertEquals(3, result.size());
+    }
+
+    @Test void unionShouldContainItemsOfBoth() {
+        var s = VTreeSet.<Integer>empty().addAll(VList.of(1, 3, 5));
+        var t = VTreeSet.<Integer>empty().addAll(VList.of(2, 3, 4));
+        var union = s.union(s, t);
+        Assertions.assertEquals("[1, 2, 3, 4, 5]", union.toString());
+        Assertions.assertEquals(5, union.size());
+    }
+
+    @Test void statsShouldDescribeTheTreeShape() {
+        var set = VTreeSet.<Integer>empty();
+        Assertions.assertEquals(new TreeStats(0, 0, java.util.List.of(), 0.0, 0, Maybe.none()), set.stats());
+        for (var i = 0; i < 1000; i++) {
+            set = set.insert(i);
+        }
+        var stats = set.stats();
+        Assertions.assertEquals(1000, stats.nodes());
+        Assertions.assertEquals(set.height(), stats.height());
+        Assertions.assertEquals(1000, stats.levelHistogram().stream().mapToInt(Integer::intValue).sum());
+        Assertions.assertTrue(stats.averageDepth() > 1 && stats.averageDepth() < stats.height());
+        Assertions.assertEquals(1000L * BalancedBst.NodeBytes, stats.estimatedBytes());
+        Assertions.assertTrue(stats.balanced(), stats.violation().toString());
+    }
+
+    @Test void statsShouldReportBrokenInvariants() {
+        // a level 2 root over a level 2 left leaf and a level 1 right leaf:
+        // AA1 fails at the root
+        BalancedBst.AlgebraicTr<Integer> leaf1 = BalancedBst.AlgebraicTr.node(2,
+                BalancedBst.AlgebraicTr.empty(), 1, BalancedBst.AlgebraicTr.empty());
+        BalancedBst.AlgebraicTr<Integer> leaf3 = BalancedBst.AlgebraicTr.node(1,
+                BalancedBst.AlgebraicTr.empty(), 3, BalancedBst.AlgebraicTr.empty());
+        var bad = BalancedBst.ofRep(Integer::compare, BalancedBst.AlgebraicTr.node(2, leaf1, 2, leaf3));
+        var stats = bad.stats(0);
+        Assertions.assertFalse(stats.balanced());
+        Assertions.assertTrue(stats.violation().get().startsWith("AA1"), stats.violation().get());
+        // a level 2 root missing its right child: AA4 fails at the root
+        var lopsided = BalancedBst.ofRep(Integer::compare,
+                BalancedBst.AlgebraicTr.node(2, leaf3, 4, BalancedBst.AlgebraicTr.empty()));
+        var violation = lopsided.stats(0).violation().get();
+        Assertions.assertTrue(violation.startsWith("AA4"), violation);
+    }
+}
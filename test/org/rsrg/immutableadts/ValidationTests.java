@@ -0,0 +1,59 @@
+package org.rsrg.immutableadts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+public final class ValidationTests {
+
+    private static Validation<Integer, String> positive(int x) {
+        return x > 0 ? Validation.valid(x) : Validation.invalid("not positive: " + x);
+    }
+
+    @Test void combineShouldGatherErrorsOfBothSides() {
+        var ok = positive(1).combine(positive(2), Integer::sum);
+        Assertions.assertEquals(3, ok.get());
+        var bad = positive(-1).combine(positive(-2), Integer::sum);
+        Assertions.assertEquals(VChain.of("not positive: -1", "not positive: -2"), bad.getErrors());
+        Assertions.assertEquals(VChain.of("not positive: 0"),
+                positive(1).combine(positive(0), Integer::sum).getErrors());
+        Assertions.assertTrue(bad.toResult().isError());
+    }
+
+    @Test void invalidShouldRequireErrors() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Validation.invalid(VChain.<String>empty()));
+    }
+
+    @Test void traverseShouldCollectValuesInOrder() {
+        var result = Validation.traverse(VList.of(1, 2, 3), ValidationTests::positive);
+        Assertions.assertEquals(VList.of(1, 2, 3), result.get());
+        Assertions.assertEquals(VList.empty(), Validation.sequence(VList.<Validation<Integer, String>>empty()).get());
+    }
+
+    @Test void traverseShouldGatherAllErrors() {
+        var result = Validation.traverseResults(VList.of(1, -2, 3, -4),
+                x -> x > 0 ? Result.ok(x) : Result.<Integer, String>err("bad " + x));
+        Assertions.assertEquals(VChain.of("bad -2", "bad -4"), result.getErrors());
+    }
+
+    @Test void traverseShouldHandleManyErrors() {
+        final int n = 1_000_000;
+        var xs = new ArrayList<Integer>(n);
+        for (var i = 0; i < n; i++) {
+            xs.add(-i);
+        }
+        var bigErrors = VChain.<String>builder();
+        for (var i = 0; i < 100; i++) {
+            bigErrors.add("big " + i);
+        }
+        var big = Validation.<Integer, String>invalid(bigErrors.build());
+        var result = Validation.traverse(xs, x -> x == -500_000 ? big : Validation.invalid("e" + x));
+        var errors = result.getErrors();
+        Assertions.assertEquals(n - 1 + 100, errors.length());
+        Assertions.assertEquals("e0", errors.get(0));
+        Assertions.assertEquals("big 0", errors.get(500_000));
+        Assertions.assertEquals("e-500001", errors.get(500_100));
+        Assertions.assertEquals(Maybe.of("e-" + (n - 1)), errors.last());
+    }
+}